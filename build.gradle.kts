@@ -54,6 +54,36 @@ dependencies {
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-params:5.3.1")
 }
 
+// Optional java.lang.foreign backend (src/main/java22), only built when given a JDK 22+ home:
+//      gradle build -Pjava22Home=/path/to/jdk-22
+// Its classes are packaged into META-INF/versions/22, turning the jar into a multi-release jar.
+val java22Home = findProperty("java22Home") as String?
+
+if (java22Home != null) {
+    sourceSets {
+        create("java22") {
+            java.srcDir("src/main/java22")
+            compileClasspath += sourceSets["main"].output + configurations["compileClasspath"]
+        }
+    }
+
+    tasks.named<JavaCompile>("compileJava22Java") {
+        options.isFork = true
+        options.forkOptions.javaHome = file(java22Home)
+        options.compilerArgs.addAll(listOf("--release", "22"))
+    }
+
+    tasks.jar {
+        into("META-INF/versions/22") {
+            from(sourceSets["java22"].output)
+        }
+
+        manifest {
+            attributes(mapOf("Multi-Release" to "true"))
+        }
+    }
+}
+
 application {
     // Define the main class for the application.
     mainClassName = "com.elemency.Midi4J.Examples.App"
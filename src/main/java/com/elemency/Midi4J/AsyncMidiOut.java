@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Non blocking front end of a MidiOut device: messages are handed over to a bounded lock-free queue,
+ * sent by a dedicated writer thread, so a BroadcastListener or a native input callback never waits on
+ * the output backend.<br><br>
+ *
+ * When the queue is full, the {@link OverflowPolicy} drops the new message, drops the oldest queued one,
+ * or blocks the caller until there is room.<br>
+ * Messages must not be modified until sent (see {@link ImmutableMidiMessage}); pooled messages are
+ * retained until then.<br>
+ * Closing an AsyncMidiOut sends the queued messages and stops the writer thread, the MidiOut device being
+ * left open.
+ */
+public class AsyncMidiOut implements AutoCloseable {
+    private final Logger logger = LoggerFactory.getLogger(AsyncMidiOut.class);
+
+    private final Consumer<MidiMessage> sender;
+    private final MpmcRingBuffer<MidiMessage> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final WaitStrategy waitStrategy;
+    private final Thread writer;
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+    private volatile boolean running = true;
+
+    /**
+     * @param midiOut           MidiOut device the messages are sent to
+     * @param capacity          queue size, rounded up to the next power of 2.
+     * @param overflowPolicy    what to do with a message when the queue is full
+     * @param waitStrategy      how the writer thread waits for messages: BUSY_SPIN, YIELD or PARK.
+     */
+    public AsyncMidiOut(MidiOut midiOut, int capacity, OverflowPolicy overflowPolicy, WaitStrategy waitStrategy) {
+        this(midiOut::sendMessage, capacity, overflowPolicy, waitStrategy, "writer-" + midiOut.getSourceDeviceName());
+    }
+
+    /**
+     * @param sender            called, on the writer thread, with each message to send
+     * @param capacity          queue size, rounded up to the next power of 2.
+     * @param overflowPolicy    what to do with a message when the queue is full
+     * @param waitStrategy      how the writer thread waits for messages: BUSY_SPIN, YIELD or PARK.
+     * @param threadName        writer thread name - this appears in the log
+     */
+    AsyncMidiOut(Consumer<MidiMessage> sender, int capacity, OverflowPolicy overflowPolicy,
+                 WaitStrategy waitStrategy, String threadName) {
+
+        if (overflowPolicy == null || waitStrategy == null) {
+            throw new NullPointerException("overflowPolicy or waitStrategy is 'null' - can't create an async midi out.");
+        }
+
+        this.sender = sender;
+        this.queue = new MpmcRingBuffer<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.waitStrategy = waitStrategy;
+
+        writer = new Thread(this::run, threadName);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue a midi message to be sent by the writer thread.
+     *
+     * @param midiMessage   midi message to be sent
+     * @return              false if the message was dropped (DROP_NEWEST policy, or closed).
+     */
+    public boolean sendMessage(MidiMessage midiMessage) {
+        if (midiMessage == null) {
+            throw new NullPointerException("midiMessage is 'null' - can't send it.");
+        }
+
+        if (!running) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+
+        midiMessage.retain();
+
+        while (!queue.offer(midiMessage)) {
+            switch (overflowPolicy) {
+                case DROP_NEWEST:
+                    droppedCount.incrementAndGet();
+                    midiMessage.release();
+                    return false;
+
+                case DROP_OLDEST:
+                    MidiMessage oldest = queue.poll();
+                    if (oldest != null) {
+                        droppedCount.incrementAndGet();
+                        oldest.release();
+                    }
+                    break;
+
+                case BLOCK:
+                    if (!running) {
+                        droppedCount.incrementAndGet();
+                        midiMessage.release();
+                        return false;
+                    }
+
+                    LockSupport.parkNanos(WaitStrategy.PARK_NANOS);
+                    break;
+            }
+        }
+
+        // Closed while offering: the writer may be gone already, so nothing queued from now on can be sent.
+        if (!running) {
+            return !discardQueued(midiMessage);
+        }
+
+        int depth = queue.size();
+        int max = highWaterMark.get();
+        while (depth > max && !highWaterMark.compareAndSet(max, depth)) {
+            max = highWaterMark.get();
+        }
+
+        return true;
+    }
+
+    /**
+     * Return the number of messages waiting to be sent.
+     *
+     * @return int
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Return the largest number of messages that have waited to be sent at once.
+     *
+     * @return int
+     */
+    public int getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    /**
+     * Return the queue capacity.
+     *
+     * @return int
+     */
+    public int getCapacity() {
+        return queue.capacity();
+    }
+
+    /**
+     * Return the number of messages sent by the writer thread.
+     *
+     * @return long
+     */
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    /**
+     * Return the number of messages dropped by the overflow policy (or sent after closing).
+     *
+     * @return long
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Send the queued messages and stop the writer thread.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+
+        try {
+            writer.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            MidiMessage midiMessage = queue.poll();
+
+            if (midiMessage == null) {
+                waitStrategy.idle();
+                continue;
+            }
+
+            send(midiMessage);
+        }
+
+        // Send what was already queued, including the slots producers have claimed but not filled yet.
+        while (!queue.isEmpty()) {
+            MidiMessage midiMessage = queue.poll();
+
+            if (midiMessage == null) {
+                Thread.yield();
+                continue;
+            }
+
+            send(midiMessage);
+        }
+    }
+
+    /**
+     * Drop the queued messages once closed, until a given one is found or nothing is left.
+     *
+     * @param midiMessage   message offered after closing
+     * @return              true if this message was dropped, false if the writer sent it.
+     */
+    private boolean discardQueued(MidiMessage midiMessage) {
+        while (!queue.isEmpty()) {
+            MidiMessage queued = queue.poll();
+
+            if (queued == null) {
+                Thread.yield();
+                continue;
+            }
+
+            droppedCount.incrementAndGet();
+            queued.release();
+
+            if (queued == midiMessage) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void send(MidiMessage midiMessage) {
+        try {
+            sender.accept(midiMessage);
+            sentCount.incrementAndGet();
+        } catch (RuntimeException re) {
+            logger.error("Queued midi message couldn't be sent.", re);
+        } finally {
+            midiMessage.release();
+        }
+    }
+
+    /**
+     * What {@link #sendMessage(MidiMessage)} does when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /** Drop the message being sent. */
+        DROP_NEWEST,
+        /** Drop the oldest queued message to make room, favouring the most recent state. */
+        DROP_OLDEST,
+        /** Wait for the writer thread to make room (the caller may then wait on the output backend). */
+        BLOCK
+    }
+}
@@ -17,8 +17,8 @@ package com.elemency.Midi4J;
 
 import com.sun.jna.Pointer;
 import java.io.Serializable;
-import java.util.LinkedList;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -33,14 +33,14 @@ public class Broadcaster implements Serializable
     private static final long serialVersionUID = 1L;
 
     static ExecutorService executorService = Executors.newSingleThreadExecutor();
-    private static final LinkedList<BroadcastListener> listeners = new LinkedList<>();
+    private static final CopyOnWriteArrayList<BroadcastListener> listeners = new CopyOnWriteArrayList<>();
 
     /**
      * Add a listener to the list.
      *
      * @param listener  BroadcastListener
      */
-    public static synchronized void register(BroadcastListener listener)
+    public static void register(BroadcastListener listener)
     {
         listeners.add(listener);
     }
@@ -50,10 +50,9 @@ public class Broadcaster implements Serializable
      *
      * @param listener  BroadcastListener
      */
-    public static synchronized void unregister(BroadcastListener listener)
+    public static void unregister(BroadcastListener listener)
     {
         listeners.remove(listener);
-
     }
 
     /**
@@ -64,25 +63,56 @@ public class Broadcaster implements Serializable
     }
 
     /**
-     * Broadcast a midi message with its uuid and userData (if any).
+     * Broadcast a midi message with its uuid and userData (if any).<br>
+     * A pooled message is retained once per listener and released as soon as that listener returns,
+     * the caller keeping (and releasing) its own reference.
      *
      * @param uuid          UUID
      * @param midiMessage   MidiMessage
      * @param userData      USerData
      */
-    public static synchronized void broadcast(UUID uuid, MidiMessage midiMessage, Pointer userData)
+    public static void broadcast(UUID uuid, MidiMessage midiMessage, Pointer userData)
     {
         for (final BroadcastListener listener : listeners)
         {
+            midiMessage.retain();
             executorService.execute(
-                    () -> listener.receiveMessage(uuid, midiMessage, userData)
+                    () -> {
+                        try {
+                            listener.receiveMessage(uuid, midiMessage, userData);
+                        } finally {
+                            midiMessage.release();
+                        }
+                    }
             );
         }
     }
 
+    /**
+     * Deliver a midi message with its uuid and userData (if any) to every listener on the calling thread,
+     * without locking nor going through the broadcaster executor (see {@link MidiIn#enableRingDispatch(int, WaitStrategy)}).<br>
+     * The caller keeps (and releases) its reference: listeners must retain the message to use it once they return.
+     *
+     * @param uuid          UUID
+     * @param midiMessage   MidiMessage
+     * @param userData      USerData
+     */
+    public static void dispatch(UUID uuid, MidiMessage midiMessage, Pointer userData)
+    {
+        for (final BroadcastListener listener : listeners)
+        {
+            listener.receiveMessage(uuid, midiMessage, userData);
+        }
+    }
+
     /**
      * Implement this interface in your application to receive all midi messages from internal native callback(s)
-     * subscribed to this broadcaster..
+     * subscribed to this broadcaster..<br>
+     * When the source MidiIn device uses a message pool, the received message is only valid until
+     * receiveMessage returns, unless the listener calls {@link MidiMessage#retain()} and later
+     * {@link MidiMessage#release()} on it.<br>
+     * The same message instance is passed to every listener: use {@link MidiIn#setImmutableMessages(boolean)}
+     * to share ImmutableMidiMessage instances instead of copying them in each listener.
      */
     public interface BroadcastListener
     {
@@ -31,7 +31,9 @@ import com.sun.jna.NativeLibrary;
  * &nbsp; &nbsp; run --args="callbacks"<br>
  * &nbsp; &nbsp; run --args="both"<br>
  * &nbsp; &nbsp; run --args="loop"<br>
- * &nbsp; &nbsp; run --args="sequencer"<br><br>
+ * &nbsp; &nbsp; run --args="sequencer"<br>
+ * &nbsp; &nbsp; run --args="benchmark"<br>
+ * &nbsp; &nbsp; run --args="batch"<br><br>
  *
  * <b>Broadcaster option</b> (default)<br>
  * Handles all midi incoming events from MidiIn source devices thru a centralised
@@ -53,7 +55,13 @@ import com.sun.jna.NativeLibrary;
  * Although I didn't try, it should also work in addition to callback(s) and/or a broadcaster.<br><br>
  *
  * <b>Sequencer option</b><br>
- * Just a very simple and crude monodic sequencer using a timer as its engine - no MidiIn.
+ * Just a very simple and crude monodic sequencer using a timer as its engine - no MidiIn.<br><br>
+ *
+ * <b>Benchmark option</b><br>
+ * Measures the per call cost of the RtMidi hot functions through the interface and direct JNA mappings.<br><br>
+ *
+ * <b>Batch option</b><br>
+ * Measures the per message cost of sending batches of messages one by one and with MidiOut.sendMessages.
  */
 public class App {
 
@@ -25,14 +25,16 @@ import java.util.function.Supplier;
  * run --args="callbacks" to launch the sample with callback(s).<br>
  * run --args="both" to launch the sample with both a callback and a broadcaster.<br>
  * run --args="loop" to launch the crude game loop (polling) sample.<br>
- * run --args="sequencer" to launch the simple sequencer sample.
+ * run --args="sequencer" to launch the simple sequencer sample.<br>
+ * run --args="benchmark" to compare the interface and direct JNA mappings of the RtMidi hot functions.<br>
+ * run --args="batch" to compare sending batches of messages one by one and with sendMessages.
  */
 public class AppOptionsFactory {
     private final static Logger logger = LoggerFactory.getLogger(AppOptionsFactory.class);
 
     /**
      *
-     * @param optionType    The argument passed to run --args="broadcaster", "callbacks", "both", "loop" or "sequencer"
+     * @param optionType    The argument passed to run --args="broadcaster", "callbacks", "both", "loop", "sequencer", "benchmark" or "batch"
      * @return              user chosen AppOption.
      */
     public static AppOption getAppOption(String optionType) {
@@ -52,7 +54,9 @@ public class AppOptionsFactory {
                     "\trun --args=\"callbacks\" to launch the sample with callback(s).\n" +
                     "\trun --args=\"both\" to launch the sample with both a callback and a broadcaster.\n" +
                     "\trun --args=\"loop\" to launch the crude game loop (polling) sample.\n" +
-                    "\trun --args=\"sequencer\" to launch the simple sequencer sample.\n\n" +
+                    "\trun --args=\"sequencer\" to launch the simple sequencer sample.\n" +
+                    "\trun --args=\"benchmark\" to compare the interface and direct JNA mappings.\n" +
+                    "\trun --args=\"batch\" to compare single and batched message sends.\n\n" +
                     "Reverting to default method (--args=\"broadcaster\")\n" +
                     "---------------------------------------------------------------------------------------------------\n"
             );
@@ -68,7 +72,9 @@ public class AppOptionsFactory {
         BROADCASTER(WithBroadcaster::new),
         BOTH(WithBoth::new),
         LOOP(WithLoop::new),
-        SEQUENCER(SimpleSequencer::new);
+        SEQUENCER(SimpleSequencer::new),
+        BENCHMARK(JnaBenchmark::new),
+        BATCH(BatchSendBenchmark::new);
 
         private final Supplier<AppOption> option;
 
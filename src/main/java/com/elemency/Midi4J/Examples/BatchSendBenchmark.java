@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J.Examples;
+
+import com.elemency.Midi4J.MidiBuffer;
+import com.elemency.Midi4J.MidiMessage;
+import com.elemency.Midi4J.MidiOut;
+import com.elemency.Midi4J.RtMidiDriver.RtMidiSysApiMgr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This sample measures the per message cost of sending batches of simultaneous events (chords,
+ * controller snapshots...) with a sendMessage loop and with the sendMessages methods
+ * (a list of MidiMessage, a heap and a direct MidiBuffer).<br>
+ * Messages are sent to an unconnected OUT port, so the figures mostly show the binding overhead.
+ */
+public class BatchSendBenchmark implements AppOption {
+    private final String SAMPLE_TITLE = "Batch Send Benchmark";
+
+    private static final int BATCH_SIZE = 32;
+    private static final int WARMUP_BATCHES = 10_000;
+    private static final int MEASURED_BATCHES = 50_000;
+
+    private final List<MidiMessage> batch = new ArrayList<>(BATCH_SIZE);
+    private final MidiBuffer heapBuffer = new MidiBuffer();
+    private final MidiBuffer directBuffer = new MidiBuffer(1024, true);
+
+    @Override
+    public void init() throws Exception {
+
+        System.out.println("-------------------------");
+        System.out.println("| " + SAMPLE_TITLE + " |");
+        System.out.println("-------------------------\n");
+
+        // A controller snapshot: one controller per channel, then a chord on channel 1.
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            MidiMessage midiMessage = i < 16
+                    ? new MidiMessage(0xB0 | i, 7, 100, 0)
+                    : MidiMessage.noteOn(1, 48 + i, 100, 0);
+
+            batch.add(midiMessage);
+            heapBuffer.append(midiMessage);
+            directBuffer.append(midiMessage);
+        }
+
+        try (MidiOut midi4jOut = new MidiOut(RtMidiSysApiMgr.Api.UNSPECIFIED.getIntValue(), "Midi4J")) {
+            long loop = measure(() -> {
+                for (MidiMessage midiMessage : batch) {
+                    midi4jOut.sendMessage(midiMessage);
+                }
+            });
+
+            long list = measure(() -> midi4jOut.sendMessages(batch));
+            long heap = measure(() -> midi4jOut.sendMessages(heapBuffer));
+            long direct = measure(() -> midi4jOut.sendMessages(directBuffer));
+
+            report("sendMessage loop", loop, loop);
+            report("sendMessages(List)", list, loop);
+            report("sendMessages(heap)", heap, loop);
+            report("sendMessages(direct)", direct, loop);
+        }
+    }
+
+    private long measure(Runnable sendBatch) {
+        for (int i = 0; i < WARMUP_BATCHES; i++) {
+            sendBatch.run();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_BATCHES; i++) {
+            sendBatch.run();
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private void report(String method, long elapsed, long reference) {
+        double perMessage = (double) elapsed / ((long) MEASURED_BATCHES * BATCH_SIZE);
+
+        System.out.printf("%-22s %8.1f ns/message   (x%.2f)%n", method, perMessage, (double) reference / elapsed);
+    }
+}
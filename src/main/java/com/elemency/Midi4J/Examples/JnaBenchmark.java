@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J.Examples;
+
+import com.elemency.Midi4J.MidiIn;
+import com.elemency.Midi4J.MidiOut;
+import com.elemency.Midi4J.RtMidiDriver.RtMidiDevice;
+import com.elemency.Midi4J.RtMidiDriver.RtMidiDirect;
+import com.elemency.Midi4J.RtMidiDriver.RtMidiLibrary;
+import com.elemency.Midi4J.RtMidiDriver.RtMidiLibrary.size_tByReference;
+import com.elemency.Midi4J.RtMidiDriver.RtMidiSysApiMgr;
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+
+/**
+ * This sample measures the per call cost of the RtMidi hot functions through the interface mapped
+ * RtMidiLibrary and through the direct mapped RtMidiDirect, which must be enabled on the command line
+ * with -Dmidi4j.jna.direct=true.<br>
+ * Messages are sent to an unconnected OUT port and polled from an (empty) IN port, so the figures
+ * mostly show the binding overhead.
+ */
+public class JnaBenchmark implements AppOption {
+    private final String SAMPLE_TITLE = "JNA Mapping Benchmark";
+
+    private static final int WARMUP_CALLS = 200_000;
+    private static final int MEASURED_CALLS = 1_000_000;
+
+    private final RtMidiLibrary lib = RtMidiLibrary.INSTANCE;
+    private final byte[] message = {(byte) 0x90, 60, 100};
+
+    @Override
+    public void init() throws Exception {
+
+        System.out.println("-------------------------");
+        System.out.println("| " + SAMPLE_TITLE + " |");
+        System.out.println("-------------------------\n");
+
+        // The direct mapping is registered once, when RtMidiDirect is first loaded: it can only be
+        // selected on the command line, not from here.
+        if (!RtMidiDirect.isEnabled()) {
+            System.out.println("Direct mapping not registered - run with -D" + RtMidiDirect.DIRECT_PROPERTY
+                    + "=true to compare both mappings.");
+            return;
+        }
+
+        System.out.println("Bindings compared: RtMidiLibrary (interface mapped) and RtMidiDirect (direct mapped).\n");
+
+        try (
+                MidiOut midi4jOut = new MidiOut(RtMidiSysApiMgr.Api.UNSPECIFIED.getIntValue(), "Midi4J");
+                MidiIn midi4jIn = new MidiIn(RtMidiSysApiMgr.Api.UNSPECIFIED.getIntValue(), "Midi4J", 100, true)
+        ) {
+            benchmarkSend(midi4jOut.getRtMidiDevice());
+            benchmarkPoll(midi4jIn.getRtMidiDevice());
+        }
+    }
+
+    private void benchmarkSend(RtMidiDevice device) {
+        Pointer devicePointer = device.getPointer();
+
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            lib.rtmidi_out_send_message(device, message, message.length);
+            RtMidiDirect.rtmidi_out_send_message(devicePointer, message, message.length);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            lib.rtmidi_out_send_message(device, message, message.length);
+        }
+        long interfaceMapped = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            RtMidiDirect.rtmidi_out_send_message(devicePointer, message, message.length);
+        }
+        long directMapped = System.nanoTime() - start;
+
+        report("rtmidi_out_send_message", interfaceMapped, directMapped);
+    }
+
+    private void benchmarkPoll(RtMidiDevice device) {
+        Pointer devicePointer = device.getPointer();
+        Memory buffer = new Memory(1024);
+        size_tByReference size = new size_tByReference();
+
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            size.setLongValue(buffer.size());
+            lib.rtmidi_in_get_message(device, buffer, size);
+            size.setLongValue(buffer.size());
+            RtMidiDirect.rtmidi_in_get_message(devicePointer, buffer, size.getPointer());
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            size.setLongValue(buffer.size());
+            lib.rtmidi_in_get_message(device, buffer, size);
+        }
+        long interfaceMapped = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            size.setLongValue(buffer.size());
+            RtMidiDirect.rtmidi_in_get_message(devicePointer, buffer, size.getPointer());
+        }
+        long directMapped = System.nanoTime() - start;
+
+        report("rtmidi_in_get_message", interfaceMapped, directMapped);
+    }
+
+    private void report(String function, long interfaceMapped, long directMapped) {
+        double interfacePerCall = (double) interfaceMapped / MEASURED_CALLS;
+        double directPerCall = (double) directMapped / MEASURED_CALLS;
+
+        System.out.printf("%-24s interface: %8.1f ns/call   direct: %8.1f ns/call   (x%.2f)%n",
+                function, interfacePerCall, directPerCall, interfacePerCall / directPerCall);
+    }
+}
@@ -23,8 +23,11 @@ import com.elemency.Midi4J.RtMidiDriver.RtMidiSysApiMgr;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
+
 /**
- * This sample illustrates how midi messages can be gathered via a crude game loop (polling).
+ * This sample illustrates how midi messages can be gathered via a game loop, which sleeps in
+ * {@link MidiIn#take()} until a message arrives rather than polling.
  */
 public class WithLoop implements AppOption {
     private final String SAMPLE_TITLE = "Method with Game Loop";
@@ -34,7 +37,15 @@ public class WithLoop implements AppOption {
     private final Logger logger = LoggerFactory.getLogger(WithLoop.class);
     private MidiIn midi4jIn = null;
     private MidiOut midi4jOut = null;
-    private MidiMessage midiMessage = null;
+
+    // Reused for every loop: all queued messages are gathered in one go.
+    private static final int MAX_BATCH = 256;
+    private final MidiBuffer inputBuffer = new MidiBuffer();
+    private final MidiBuffer.Cursor cursor = inputBuffer.cursor();
+    private final byte[] outputData = new byte[1024];
+
+    // Reused for every log line: only the String handed over to the logger is allocated.
+    private final StringBuilder logLine = new StringBuilder(128);
 
     private boolean doQuit = false;
 
@@ -79,11 +90,16 @@ public class WithLoop implements AppOption {
                 me.printStackTrace();
             }
 
+            // The library callback feeds a queue the loop waits on.
+            this.midi4jIn.enableMessageQueue(MAX_BATCH);
+
             while (!doQuit) {
-                processInput();
+                if (processInput() == 0) {
+                    continue;
+                }
+
                 update();
                 render();
-                Thread.sleep(1);
             }
 
         } catch (MidiException me) {
@@ -92,33 +108,58 @@ public class WithLoop implements AppOption {
     }
 
 
-    private void processInput() {
-        midiMessage = midi4jIn.getMessage();
+    private int processInput() throws InterruptedException {
+        inputBuffer.clear();
 
-        if (midiMessage != null) {
+        // Sleep until a message arrives, then gather those already queued behind it.
+        MidiMessage midiMessage = midi4jIn.take();
+        while (midiMessage != null) {
+            inputBuffer.append(midiMessage);
+            midiMessage.release();
 
-            if (!doQuit) {
-                if (midiMessage.getControllerNumber() == 89 && midiMessage.getControllerValue() == 127) {
-                    logger.info("quitting...");
-                    doQuit = true;
-                }
+            if (inputBuffer.getEventCount() == MAX_BATCH) {
+                break;
             }
+
+            midiMessage = midi4jIn.poll(0, TimeUnit.MILLISECONDS);
         }
+
+        int count = inputBuffer.getEventCount();
+
+        cursor.reset();
+        while (cursor.next() && !doQuit) {
+            int status = cursor.getStatusByte();
+
+            if ((status & 0xF0) == 0xB0 && cursor.getByte(1) == 89 && cursor.getByte(2) == 127) {
+                logger.info("quitting...");
+                doQuit = true;
+            }
+        }
+
+        return count;
     }
 
     private void update() {
-        if (midiMessage != null) {
-
-            midi4jOut.sendMessage(midiMessage);
+        cursor.reset();
+        while (cursor.next()) {
+            if (cursor.getSize() <= outputData.length) {
+                midi4jOut.sendMessage(outputData, cursor.copyTo(outputData, 0));
+            }
         }
     }
 
     private void render() {
-        if (midiMessage != null && !doQuit && DISPLAY_LOG) {
-            logger.info(
-                    SmpteTimecode.getTimecode(SmpteTimecode.getElapsedTimeSinceStartTime()) +
-                            midiMessage.timeStampAsTimecode() + midiMessage.getDescription()
-            );
+        if (doQuit || !DISPLAY_LOG) {
+            return;
+        }
+
+        cursor.reset();
+        while (cursor.next()) {
+            logLine.setLength(0);
+            SmpteTimecode.appendTimecode(logLine, SmpteTimecode.getElapsedTimeSinceStartTime());
+            SmpteTimecode.appendTimecode(logLine, cursor.getTimeStamp() * 1000);
+
+            logger.info(cursor.appendDescription(logLine).toString());
         }
     }
 
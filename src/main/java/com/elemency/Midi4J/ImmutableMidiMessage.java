@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import com.elemency.Midi4J.RtMidiDriver.RtMidiLibrary.size_t;
+import com.sun.jna.Pointer;
+
+import java.util.Arrays;
+
+/**
+ * A MidiMessage which can't be modified once created, so a single instance can be handed
+ * to any number of listeners without defensive copies.<br><br>
+ *
+ * All MidiMessage setters throw an UnsupportedOperationException, their 'with' counterparts
+ * returning a new instance instead. The midi data is shared copy-on-write:
+ * {@link #withTimeStamp(double)} shares it, the other transformations copy it.<br>
+ * Its state lives in the (non final) MidiMessage fields: an instance handed to another thread must be
+ * safely published - through a concurrent queue, a volatile field, a lock or an executor, as the
+ * Broadcaster and the MidiIn dispatch modes do.
+ */
+public final class ImmutableMidiMessage extends MidiMessage {
+
+    private ImmutableMidiMessage(byte[] ownedMidiData, int midiDataSize, double timeStamp, long arrivalTime) {
+        super(ownedMidiData, midiDataSize, timeStamp, arrivalTime);
+    }
+
+    /***
+     * Creates an immutable midi message from a native jna block of data.
+     *
+     * @param midiData      midi message set in a jna pointer
+     * @param midiDataSize  midi message size (jnaerator native)
+     * @param timeStamp     time stamp
+     */
+    public ImmutableMidiMessage(Pointer midiData, size_t midiDataSize, double timeStamp) {
+        super(midiData, midiDataSize, timeStamp);
+    }
+
+    /**
+     * Creates a received immutable midi message from a native jna block of data.
+     *
+     * @param midiData      midi message set in a jna pointer
+     * @param midiDataSize  midi message size (jnaerator native)
+     * @param timeStamp     time stamp
+     * @param arrivalTime   System.nanoTime() at reception
+     */
+    ImmutableMidiMessage(Pointer midiData, size_t midiDataSize, double timeStamp, long arrivalTime) {
+        super(midiData, midiDataSize, timeStamp, arrivalTime);
+    }
+
+    /**
+     * Creates an immutable midi message from a copy of a block of data.
+     *
+     * @param midiData      midi message set in a byte[]
+     * @param midiDataSize  midi message size
+     * @param timeStamp     time stamp
+     * @return              ImmutableMidiMessage
+     */
+    public static ImmutableMidiMessage of(byte[] midiData, int midiDataSize, double timeStamp) {
+        if (midiData == null) {
+            throw new NullPointerException("midiData is 'null' - can't create an immutable message from it.");
+        }
+
+        return new ImmutableMidiMessage(Arrays.copyOf(midiData, midiDataSize), midiDataSize, timeStamp, 0);
+    }
+
+    /**
+     * Creates an immutable copy of a midi message, or returns it as is when already immutable.
+     *
+     * @param midiMessage   MidiMessage
+     * @return              ImmutableMidiMessage
+     */
+    public static ImmutableMidiMessage copyOf(MidiMessage midiMessage) {
+        if (midiMessage instanceof ImmutableMidiMessage) {
+            return (ImmutableMidiMessage) midiMessage;
+        }
+
+        int size = midiMessage.getMidiDataSize();
+        return new ImmutableMidiMessage(Arrays.copyOf(midiMessage.rawMidiData(), size), size,
+                midiMessage.getTimeStamp(), midiMessage.getArrivalTime());
+    }
+
+    /**
+     * Returns a mutable copy of this message.
+     *
+     * @return MidiMessage
+     */
+    public MidiMessage toMidiMessage() {
+        int size = getMidiDataSize();
+        return new MidiMessage(Arrays.copyOf(rawMidiData(), size), size, getTimeStamp(), getArrivalTime());
+    }
+
+    /***
+     * Returns a copy of the midi data block, the original one never leaving this message.
+     *
+     * @return byte[]
+     */
+    @Override
+    public byte[] getMidiData() {
+        return Arrays.copyOf(rawMidiData(), getMidiDataSize());
+    }
+
+    /**
+     * Returns a copy of the sysex data inside the message.
+     *
+     * @return byte[]
+     */
+    @Override
+    public byte[] getSysExData() {
+        return isSysEx() ? getMidiData() : null;
+    }
+
+    /**
+     * Return a copy of this message with a new timestamp, sharing its midi data.
+     *
+     * @param newTimestamp the new timestamp in microseconds
+     * @return ImmutableMidiMessage
+     */
+    @Override
+    public ImmutableMidiMessage withTimeStamp(double newTimestamp) {
+        return new ImmutableMidiMessage(rawMidiData(), getMidiDataSize(), newTimestamp, getArrivalTime());
+    }
+
+    /**
+     * Return a copy of this message on another midi channel.
+     *
+     * @param number the midi channel, in the range 1 to 16
+     * @return ImmutableMidiMessage
+     */
+    public ImmutableMidiMessage withChannel(int number) {
+        ImmutableMidiMessage copy = copy();
+        copy.applyChannel(number);
+        return copy;
+    }
+
+    /**
+     * Return a copy of a note-on, note-off or aftertouch message with a new note number.
+     *
+     * @param newNoteNumber the midi note number, in the range 1 to 127
+     * @return ImmutableMidiMessage
+     */
+    public ImmutableMidiMessage withNoteNumber(int newNoteNumber) {
+        ImmutableMidiMessage copy = copy();
+        copy.applyNoteNumber(newNoteNumber);
+        return copy;
+    }
+
+    /**
+     * Return a copy of a note-on or note-off message with a new velocity.
+     *
+     * @param newVelocity the note velocity, in the range 0 to 127
+     * @return ImmutableMidiMessage
+     */
+    public ImmutableMidiMessage withVelocity(int newVelocity) {
+        ImmutableMidiMessage copy = copy();
+        copy.applyVelocity(newVelocity);
+        return copy;
+    }
+
+    /**
+     * Return a copy of a note-on or note-off message with a new velocity.
+     *
+     * @param newVelocity the note velocity, in the range 0.0F to 1.0F
+     * @return ImmutableMidiMessage
+     */
+    public ImmutableMidiMessage withFloatVelocity(float newVelocity) {
+        ImmutableMidiMessage copy = copy();
+        copy.applyFloatVelocity(newVelocity);
+        return copy;
+    }
+
+    /**
+     * Return a copy of a note-on or note-off message with its velocity multiplied by a given amount.
+     *
+     * @param scaleFactor   the note velocity multiplicand, in the range 0.0F to 1.0F
+     * @return ImmutableMidiMessage
+     */
+    public ImmutableMidiMessage withMultipliedVelocity(float scaleFactor) {
+        return withFloatVelocity(getFloatVelocity() * scaleFactor);
+    }
+
+    @Override
+    public void setChannel(int number) {
+        throw unsupported("setChannel", "withChannel");
+    }
+
+    @Override
+    public void setNoteNumber(int newNoteNumber) {
+        throw unsupported("setNoteNumber", "withNoteNumber");
+    }
+
+    @Override
+    public void setVelocity(int newVelocity) {
+        throw unsupported("setVelocity", "withVelocity");
+    }
+
+    @Override
+    public void setFloatVelocity(float newVelocity) {
+        throw unsupported("setFloatVelocity", "withFloatVelocity");
+    }
+
+    @Override
+    public void multiplyVelocity(float scaleFactor) {
+        throw unsupported("multiplyVelocity", "withMultipliedVelocity");
+    }
+
+    @Override
+    public void setTimeStamp(double newTimestamp) {
+        throw unsupported("setTimeStamp", "withTimeStamp");
+    }
+
+    @Override
+    public void addToTimeStamp(double delta) {
+        throw unsupported("addToTimeStamp", "withTimeStamp");
+    }
+
+    /**
+     * Returns a new instance owning its own copy of the midi data.
+     * Only ever modified by the apply methods below, before being handed out.
+     */
+    private ImmutableMidiMessage copy() {
+        int size = getMidiDataSize();
+        return new ImmutableMidiMessage(Arrays.copyOf(rawMidiData(), size), size, getTimeStamp(), getArrivalTime());
+    }
+
+    private void applyChannel(int number) {
+        super.setChannel(number);
+    }
+
+    private void applyNoteNumber(int newNoteNumber) {
+        super.setNoteNumber(newNoteNumber);
+    }
+
+    private void applyVelocity(int newVelocity) {
+        super.setVelocity(newVelocity);
+    }
+
+    private void applyFloatVelocity(float newVelocity) {
+        super.setFloatVelocity(newVelocity);
+    }
+
+    private static UnsupportedOperationException unsupported(String method, String replacement) {
+        return new UnsupportedOperationException(
+                "An ImmutableMidiMessage can't be modified - use " + replacement + " instead of " + method + ".");
+    }
+}
@@ -0,0 +1,481 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A growable buffer packing many timestamped midi events back to back into a single
+ * ByteBuffer (heap or direct), instead of one MidiMessage object per event.<br><br>
+ *
+ * Layout of an event:<br>
+ * &nbsp; &nbsp; double &nbsp; time stamp<br>
+ * &nbsp; &nbsp; int &nbsp; &nbsp; &nbsp; midi data size<br>
+ * &nbsp; &nbsp; byte[] &nbsp; midi data<br><br>
+ *
+ * Events are read back with a reusable {@link Cursor}, which doesn't allocate while iterating.<br>
+ * A MidiBuffer isn't thread safe.
+ */
+public class MidiBuffer {
+
+    /** Size of the header (time stamp and size) preceding the midi data of each event. */
+    public static final int EVENT_HEADER_SIZE = Double.BYTES + Integer.BYTES;
+
+    private final boolean direct;
+    private ByteBuffer data;
+    private Pointer dataAddress = null;
+    private int writePosition = 0;
+    private int eventCount = 0;
+
+    /**
+     * Creates a heap MidiBuffer of 1 KB.
+     */
+    public MidiBuffer() {
+        this(1024, false);
+    }
+
+    /**
+     * @param initialCapacity   initial capacity in bytes, the buffer growing as needed.
+     * @param direct            true to allocate the buffer off-heap (direct ByteBuffer).
+     */
+    public MidiBuffer(int initialCapacity, boolean direct) {
+        if (initialCapacity < EVENT_HEADER_SIZE + 1) {
+            throw new MidiException("A MidiBuffer capacity should be > " + EVENT_HEADER_SIZE + " bytes");
+        }
+
+        this.direct = direct;
+        this.data = allocate(initialCapacity);
+    }
+
+    /**
+     * Append a midi event from a block of data.
+     *
+     * @param midiData      midi message set in a byte[]
+     * @param offset        index of the status byte in midiData
+     * @param midiDataSize  midi message size
+     * @param timeStamp     time stamp
+     */
+    public void append(byte[] midiData, int offset, int midiDataSize, double timeStamp) {
+        if (midiData == null) {
+            throw new NullPointerException("midiData is 'null' - can't append it.");
+        }
+
+        int dataOffset = reserve(midiDataSize, timeStamp);
+        at(dataOffset).put(midiData, offset, midiDataSize);
+        commit(dataOffset, midiDataSize);
+    }
+
+    /**
+     * Append a midi event straight from a native jna block of data.
+     *
+     * @param midiData      midi message set in a jna pointer
+     * @param midiDataSize  midi message size
+     * @param timeStamp     time stamp
+     */
+    public void append(Pointer midiData, int midiDataSize, double timeStamp) {
+        if (midiData == null) {
+            throw new NullPointerException("midiData is 'null' - can't append it.");
+        }
+
+        int dataOffset = reserve(midiDataSize, timeStamp);
+
+        if (direct) {
+            // Native to native, in a single copy.
+            at(dataOffset).put(midiData.getByteBuffer(0, midiDataSize));
+        } else {
+            midiData.read(0, data.array(), data.arrayOffset() + dataOffset, midiDataSize);
+        }
+
+        commit(dataOffset, midiDataSize);
+    }
+
+    /**
+     * Append a midi event from a MidiMessage instance.
+     *
+     * @param midiMessage   MidiMessage
+     */
+    public void append(MidiMessage midiMessage) {
+        append(midiMessage.rawMidiData(), 0, midiMessage.getMidiDataSize(), midiMessage.getTimeStamp());
+    }
+
+    /**
+     * Append a midi event from a packed midi message (see {@link PackedMidiMessage}).
+     *
+     * @param packed    packed midi message
+     * @param timeStamp time stamp
+     */
+    public void appendPacked(int packed, double timeStamp) {
+        int size = PackedMidiMessage.getSize(packed);
+        int dataOffset = reserve(size, timeStamp);
+
+        if (!direct) {
+            PackedMidiMessage.writeTo(packed, data.array(), data.arrayOffset() + dataOffset);
+        } else {
+            // 1 to 3 bytes: not worth a bulk transfer.
+            for (int i = 0; i < size; i++) {
+                data.put(dataOffset + i, (byte) (packed >>> (i * 8)));
+            }
+        }
+
+        commit(dataOffset, size);
+    }
+
+    /**
+     * Append a sysex event from a SysExView (header and tail bytes included).
+     *
+     * @param sysEx     SysExView
+     * @param timeStamp time stamp
+     */
+    public void append(SysExView sysEx, double timeStamp) {
+        int length = sysEx.getLength();
+        int dataOffset = reserve(length, timeStamp);
+        at(dataOffset).put(sysEx.asReadOnlyBuffer());
+        commit(dataOffset, length);
+    }
+
+    /**
+     * Append every event of another MidiBuffer.
+     *
+     * @param other MidiBuffer
+     */
+    public void appendAll(MidiBuffer other) {
+        ensureCapacity(writePosition + other.writePosition);
+
+        // A duplicate, as other may be this buffer.
+        ByteBuffer events = other.data.duplicate();
+        events.position(0).limit(other.writePosition);
+        at(writePosition).put(events);
+
+        writePosition += other.writePosition;
+        eventCount += other.eventCount;
+    }
+
+    /**
+     * Remove all events, keeping the allocated memory for reuse.
+     */
+    public void clear() {
+        writePosition = 0;
+        eventCount = 0;
+    }
+
+    /**
+     * @return the number of events in this buffer.
+     */
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * @return true if this buffer contains no event.
+     */
+    public boolean isEmpty() {
+        return eventCount == 0;
+    }
+
+    /**
+     * @return the number of bytes used by the events of this buffer.
+     */
+    public int getByteSize() {
+        return writePosition;
+    }
+
+    /**
+     * @return the number of bytes available before this buffer has to grow.
+     */
+    public int getCapacity() {
+        return data.capacity();
+    }
+
+    /**
+     * @return true if this buffer is allocated off-heap.
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Returns a read only view of the used part of this buffer (no copy), valid until the buffer grows.
+     *
+     * @return ByteBuffer
+     */
+    public ByteBuffer asReadOnlyBuffer() {
+        ByteBuffer view = data.asReadOnlyBuffer().order(data.order());
+        view.limit(writePosition).position(0);
+        return view;
+    }
+
+    /**
+     * Returns a new cursor positioned before the first event of this buffer.
+     *
+     * @return Cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * The underlying buffer, for package readers working on raw event data.
+     *
+     * @return ByteBuffer
+     */
+    ByteBuffer getData() {
+        return data;
+    }
+
+    /**
+     * The native address of the underlying buffer, for package writers of native calls (direct buffers only).
+     *
+     * @return Pointer
+     */
+    Pointer getDataAddress() {
+        if (!direct) {
+            throw new MidiException("A heap MidiBuffer has no native address.");
+        }
+
+        if (dataAddress == null) {
+            dataAddress = Native.getDirectBufferPointer(data);
+        }
+
+        return dataAddress;
+    }
+
+    /**
+     * Write the header of a new event and return the offset of its (still empty) midi data, the event
+     * only being counted by {@link #commit(int, int)} once its data is copied.
+     */
+    private int reserve(int midiDataSize, double timeStamp) {
+        if (midiDataSize < 1) {
+            throw new MidiException("A midi event size should be > 0");
+        }
+
+        ensureCapacity(writePosition + EVENT_HEADER_SIZE + midiDataSize);
+
+        data.putDouble(writePosition, timeStamp);
+        data.putInt(writePosition + Double.BYTES, midiDataSize);
+
+        return writePosition + EVENT_HEADER_SIZE;
+    }
+
+    /**
+     * Count the event reserved at dataOffset, now that its midi data is copied.
+     */
+    private void commit(int dataOffset, int midiDataSize) {
+        writePosition = dataOffset + midiDataSize;
+        eventCount++;
+    }
+
+    /**
+     * Position the underlying buffer for a bulk transfer. Its position is only ever used for these
+     * transfers, every other access being absolute.
+     */
+    private ByteBuffer at(int offset) {
+        data.position(offset);
+        return data;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= data.capacity()) {
+            return;
+        }
+
+        int capacity = data.capacity();
+        while (capacity < required) {
+            capacity = capacity << 1;
+
+            if (capacity < 0) {
+                throw new MidiException("A MidiBuffer can't grow beyond " + Integer.MAX_VALUE + " bytes");
+            }
+        }
+
+        ByteBuffer grown = allocate(capacity);
+        ByteBuffer used = data.duplicate();
+        used.position(0).limit(writePosition);
+        grown.put(used);
+        grown.clear();
+
+        data = grown;
+        dataAddress = null;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        return buffer.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Reusable, allocation free, forward iterator over the events of a MidiBuffer.
+     * <pre>
+     * MidiBuffer.Cursor cursor = buffer.cursor();
+     * while (cursor.next()) {
+     *     int status = cursor.getStatusByte();
+     *     ...
+     * }
+     * </pre>
+     */
+    public class Cursor {
+        private int eventPosition = -1;
+        private int nextPosition = 0;
+
+        // Messages of 1 to 3 bytes, reused to describe the events of that size.
+        private final MidiMessage[] described = new MidiMessage[4];
+
+        private Cursor() {
+        }
+
+        /**
+         * Move to the next event.
+         *
+         * @return false when there is no more event.
+         */
+        public boolean next() {
+            if (nextPosition >= writePosition) {
+                return false;
+            }
+
+            eventPosition = nextPosition;
+            nextPosition = eventPosition + EVENT_HEADER_SIZE + getSize();
+            return true;
+        }
+
+        /**
+         * Move back before the first event, so the cursor can be reused.
+         */
+        public void reset() {
+            eventPosition = -1;
+            nextPosition = 0;
+        }
+
+        /**
+         * @return the time stamp of the current event.
+         */
+        public double getTimeStamp() {
+            return data.getDouble(checkedPosition());
+        }
+
+        /**
+         * @return the midi data size of the current event.
+         */
+        public int getSize() {
+            return data.getInt(checkedPosition() + Double.BYTES);
+        }
+
+        /**
+         * @return the offset, in the underlying buffer, of the midi data of the current event.
+         */
+        public int getDataOffset() {
+            return checkedPosition() + EVENT_HEADER_SIZE;
+        }
+
+        /**
+         * @return the status byte of the current event.
+         */
+        public int getStatusByte() {
+            return getByte(0);
+        }
+
+        /**
+         * @param index index of the byte in the midi data of the current event.
+         * @return      the (unsigned) midi data byte.
+         */
+        public int getByte(int index) {
+            if (index < 0 || index >= getSize()) {
+                throw new IndexOutOfBoundsException("index: " + index + ", size: " + getSize());
+            }
+
+            return data.get(getDataOffset() + index) & 0xFF;
+        }
+
+        /**
+         * Returns the current event as a packed midi message (see {@link PackedMidiMessage}).
+         *
+         * @return packed midi message
+         */
+        public int getPackedMessage() {
+            int offset = getDataOffset();
+
+            switch (getSize()) {
+                case 1:
+                    return PackedMidiMessage.pack(data.get(offset));
+                case 2:
+                    return PackedMidiMessage.pack(data.get(offset), data.get(offset + 1));
+                case 3:
+                    return PackedMidiMessage.pack(data.get(offset), data.get(offset + 1), data.get(offset + 2));
+                default:
+                    throw new MidiException("Only 1 to 3 bytes midi messages can be packed, size given: " + getSize());
+            }
+        }
+
+        /**
+         * Copy the midi data of the current event into a byte[].
+         *
+         * @param dest      byte[] receiving the midi data
+         * @param offset    index at which the status byte is written
+         * @return          number of bytes written
+         */
+        public int copyTo(byte[] dest, int offset) {
+            int size = getSize();
+            at(getDataOffset()).get(dest, offset, size);
+            return size;
+        }
+
+        /**
+         * Appends a human-readable description of the current event to a caller supplied StringBuilder
+         * (see {@link MidiMessage#appendDescription(StringBuilder)}), without allocating for short messages.
+         *
+         * @param out   StringBuilder receiving the description
+         * @return      out
+         */
+        public StringBuilder appendDescription(StringBuilder out) {
+            int size = getSize();
+            MidiMessage midiMessage = size < described.length ? described[size] : null;
+
+            if (midiMessage == null) {
+                midiMessage = new MidiMessage(new byte[size], size, 0);
+
+                if (size < described.length) {
+                    described[size] = midiMessage;
+                }
+            }
+
+            copyTo(midiMessage.rawMidiData(), 0);
+            return midiMessage.appendDescription(out);
+        }
+
+        /**
+         * Creates a new MidiMessage from the current event.
+         *
+         * @return MidiMessage
+         */
+        public MidiMessage toMidiMessage() {
+            byte[] midiData = new byte[getSize()];
+            copyTo(midiData, 0);
+
+            return new MidiMessage(midiData, midiData.length, getTimeStamp());
+        }
+
+        private int checkedPosition() {
+            if (eventPosition < 0) {
+                throw new IllegalStateException("The cursor isn't positioned on an event - call next() first.");
+            }
+
+            return eventPosition;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import com.elemency.Midi4J.RtMidiDriver.RtMidiDevice;
 import com.elemency.Midi4J.RtMidiDriver.RtMidiLibrary;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.jna.Pointer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +33,8 @@ public abstract class MidiDevice implements AutoCloseable {
     protected final RtMidiLibrary lib = RtMidiLibrary.INSTANCE;
     private final Logger logger = LoggerFactory.getLogger(MidiDevice.class);
     protected RtMidiDevice rtMidiDevice = null;
+    // Raw native address of rtMidiDevice, passed to the per-message calls so JNA doesn't sync the structure.
+    protected Pointer devicePointer = null;
     protected final UUID uuid = UUID.randomUUID();
     protected String sourceDeviceName = "Midi4J";
     protected String sourcePortName = "??";
@@ -46,6 +49,44 @@ public abstract class MidiDevice implements AutoCloseable {
         return rtMidiDevice;
     }
 
+    /**
+     * Set the wrapped native Midi device, caching its raw native address.
+     *
+     * @param rtMidiDevice  RtMidiDevice
+     */
+    protected void setRtMidiDevice(RtMidiDevice rtMidiDevice) {
+        this.rtMidiDevice = rtMidiDevice;
+        this.devicePointer = rtMidiDevice == null ? null : rtMidiDevice.getPointer();
+    }
+
+    /**
+     * Return true when the last native call on this device was OK.<br>
+     * The native status is read on demand, per-message calls not syncing the wrapped structure.
+     *
+     * @return boolean
+     */
+    public boolean isOk() {
+        if (rtMidiDevice == null) {
+            throw new NullPointerException("This device is null - can't read its status.");
+        }
+
+        return (byte) rtMidiDevice.readField("ok") != 0;
+    }
+
+    /**
+     * Return the error message of the last native call on this device, or null when it was OK.
+     *
+     * @return String
+     */
+    public String getErrorMessage() {
+        if (isOk()) {
+            return null;
+        }
+
+        Pointer errorMsg = (Pointer) rtMidiDevice.readField("errorMsg");
+        return errorMsg == null ? "" : errorMsg.getString(0);
+    }
+
     /**
      * Return current source device object UUID.
      *
@@ -289,7 +330,7 @@ public abstract class MidiDevice implements AutoCloseable {
      */
     public boolean openVirtualDevice(String sourceDeviceName) {
 
-        if (rtMidiDevice.ok != 0) {
+        if (isOk()) {
             lib.rtmidi_open_virtual_port(rtMidiDevice, sourceDeviceName);
         } else {
             System.out.println("Virtual device not opened");
@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * A batch of short midi events stored as two parallel primitive arrays - packed messages
+ * (see {@link PackedMidiMessage}) and time stamps - so bulk operations (filter, transpose, velocity
+ * scaling, channel remapping, counting...) run as tight loops over ints, without any per event object.<br><br>
+ *
+ * Filters compact the batch in place, keeping the events order. Transformations only touch the
+ * events they apply to, leaving any other event unchanged. A batch isn't thread safe.
+ */
+public class MidiEventBatch {
+
+    private static final int NOTE_OFF = 0x80;
+    private static final int NOTE_ON = 0x90;
+    private static final int POLY_AFTERTOUCH = 0xA0;
+
+    private int[] messages;
+    private double[] timeStamps;
+    private int size = 0;
+
+    /**
+     * Creates an empty batch of 256 events capacity.
+     */
+    public MidiEventBatch() {
+        this(256);
+    }
+
+    /**
+     * @param initialCapacity   initial capacity in events, the batch growing as needed.
+     */
+    public MidiEventBatch(int initialCapacity) {
+        if (initialCapacity < 1) {
+            throw new MidiException("A MidiEventBatch capacity should be > 0");
+        }
+
+        messages = new int[initialCapacity];
+        timeStamps = new double[initialCapacity];
+    }
+
+    /**
+     * Add a packed midi message.
+     *
+     * @param packed    packed midi message
+     * @param timeStamp time stamp
+     */
+    public void add(int packed, double timeStamp) {
+        if (size == messages.length) {
+            grow(size + 1);
+        }
+
+        messages[size] = packed;
+        timeStamps[size] = timeStamp;
+        size++;
+    }
+
+    /**
+     * Add a short midi message.
+     *
+     * @param midiMessage   MidiMessage (1 to 3 bytes)
+     */
+    public void add(MidiMessage midiMessage) {
+        add(PackedMidiMessage.fromMidiMessage(midiMessage), midiMessage.getTimeStamp());
+    }
+
+    /**
+     * Add every short event of a MidiBuffer, SysEx (and any other unpackable) events being skipped.
+     *
+     * @param source    MidiBuffer
+     * @return          number of events skipped
+     */
+    public int addAll(MidiBuffer source) {
+        MidiBuffer.Cursor cursor = source.cursor();
+        int skipped = 0;
+
+        if (size + source.getEventCount() > messages.length) {
+            grow(size + source.getEventCount());
+        }
+
+        while (cursor.next()) {
+            if (!PackedMidiMessage.canPack(cursor.getStatusByte(), cursor.getSize())) {
+                skipped++;
+                continue;
+            }
+
+            messages[size] = cursor.getPackedMessage();
+            timeStamps[size] = cursor.getTimeStamp();
+            size++;
+        }
+
+        return skipped;
+    }
+
+    /**
+     * Append every event of this batch to a MidiBuffer.
+     *
+     * @param target    MidiBuffer
+     */
+    public void copyTo(MidiBuffer target) {
+        for (int i = 0; i < size; i++) {
+            target.appendPacked(messages[i], timeStamps[i]);
+        }
+    }
+
+    /**
+     * Remove all events, keeping the allocated arrays for reuse.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the number of events in this batch.
+     *
+     * @return int
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the packed midi message of an event.
+     *
+     * @param index event index
+     * @return      packed midi message
+     */
+    public int getMessage(int index) {
+        checkIndex(index);
+        return messages[index];
+    }
+
+    /**
+     * Returns the time stamp of an event.
+     *
+     * @param index event index
+     * @return      double
+     */
+    public double getTimeStamp(int index) {
+        checkIndex(index);
+        return timeStamps[index];
+    }
+
+    /**
+     * Keep channel messages (status 0x80 to 0xEF) on the given channels only, any other event
+     * (system message, running status data) being kept.
+     *
+     * @param channelMask   bit n set to keep channel n + 1 (0x0001 = channel 1, 0xFFFF = all channels)
+     * @return              number of events removed
+     */
+    public int filterChannels(int channelMask) {
+        int kept = 0;
+
+        for (int i = 0; i < size; i++) {
+            int packed = messages[i];
+            int status = packed & 0xFF;
+
+            if (!isChannelStatus(status) || (channelMask & (1 << (status & 0x0F))) != 0) {
+                messages[kept] = packed;
+                timeStamps[kept] = timeStamps[i];
+                kept++;
+            }
+        }
+
+        return compact(kept);
+    }
+
+    /**
+     * Keep events of the given types only (a note-on of velocity 0 being a NOTE_ON).
+     *
+     * @param types types to keep
+     * @return      number of events removed
+     */
+    public int filterTypes(Set<MidiMessage.MessageType> types) {
+        boolean[] keep = new boolean[256];
+        for (int status = 0; status < 256; status++) {
+            keep[status] = types.contains(MidiMessage.classify(status));
+        }
+
+        int kept = 0;
+
+        for (int i = 0; i < size; i++) {
+            int packed = messages[i];
+
+            if (keep[packed & 0xFF]) {
+                messages[kept] = packed;
+                timeStamps[kept] = timeStamps[i];
+                kept++;
+            }
+        }
+
+        return compact(kept);
+    }
+
+    /**
+     * Transpose note-on, note-off and poly aftertouch events, note numbers being clamped to 0 - 127.
+     *
+     * @param semitones number of semitones to transpose by (negative to transpose down)
+     */
+    public void transpose(int semitones) {
+        for (int i = 0; i < size; i++) {
+            int packed = messages[i];
+            int command = packed & 0xF0;
+
+            if (command == NOTE_OFF || command == NOTE_ON || command == POLY_AFTERTOUCH) {
+                int note = ((packed >>> 8) & 0x7F) + semitones;
+                note = note < 0 ? 0 : (note > 127 ? 127 : note);
+                messages[i] = (packed & 0xFFFF00FF) | note << 8;
+            }
+        }
+    }
+
+    /**
+     * Multiply the velocity of note-on events, the result being clamped to 1 - 127
+     * (note-on events of velocity 0, acting as note-off, are left unchanged).
+     *
+     * @param scaleFactor   the velocity multiplicand
+     */
+    public void scaleVelocity(float scaleFactor) {
+        for (int i = 0; i < size; i++) {
+            int packed = messages[i];
+            int velocity = (packed >>> 16) & 0x7F;
+
+            if ((packed & 0xF0) == NOTE_ON && velocity > 0) {
+                velocity = Math.round(velocity * scaleFactor);
+                velocity = velocity < 1 ? 1 : (velocity > 127 ? 127 : velocity);
+                messages[i] = (packed & 0xFF00FFFF) | velocity << 16;
+            }
+        }
+    }
+
+    /**
+     * Move channel messages (status 0x80 to 0xEF) to other channels, any other event being left as is.
+     *
+     * @param channelMap    16 entries, channelMap[n] being the new channel (1 - 16) of channel n + 1 events
+     */
+    public void remapChannels(int[] channelMap) {
+        if (channelMap == null || channelMap.length != 16) {
+            throw new MidiException("A channel map should hold 16 channels");
+        }
+
+        int[] statusMap = new int[16];
+        for (int channel = 0; channel < 16; channel++) {
+            if (channelMap[channel] < 1 || channelMap[channel] > 16) {
+                throw new MidiException("Midi channel should be in the range 1 to 16 - given: " + channelMap[channel]);
+            }
+
+            statusMap[channel] = channelMap[channel] - 1;
+        }
+
+        for (int i = 0; i < size; i++) {
+            int packed = messages[i];
+
+            if (isChannelStatus(packed & 0xFF)) {
+                messages[i] = (packed & 0xFFFFFFF0) | statusMap[packed & 0x0F];
+            }
+        }
+    }
+
+    /**
+     * Count events per type.
+     *
+     * @return  int[] indexed by MidiMessage.MessageType ordinal
+     */
+    public int[] countByType() {
+        int[] perStatus = new int[256];
+        for (int i = 0; i < size; i++) {
+            perStatus[messages[i] & 0xFF]++;
+        }
+
+        int[] counts = new int[MidiMessage.MessageType.values().length];
+        for (int status = 0; status < 256; status++) {
+            counts[MidiMessage.classify(status).ordinal()] += perStatus[status];
+        }
+
+        return counts;
+    }
+
+    /**
+     * Count channel messages per channel.
+     *
+     * @return  int[16], index n holding the number of events on channel n + 1
+     */
+    public int[] countByChannel() {
+        int[] counts = new int[16];
+
+        for (int i = 0; i < size; i++) {
+            int status = messages[i] & 0xFF;
+
+            if (status >= 0x80 && status < 0xF0) {
+                counts[status & 0x0F]++;
+            }
+        }
+
+        return counts;
+    }
+
+    private int compact(int kept) {
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+
+    private static boolean isChannelStatus(int status) {
+        return status >= 0x80 && status < 0xF0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+
+    private void grow(int required) {
+        int capacity = Math.max(required, messages.length << 1);
+        messages = Arrays.copyOf(messages, capacity);
+        timeStamps = Arrays.copyOf(timeStamps, capacity);
+    }
+}
@@ -15,21 +15,46 @@
 
 package com.elemency.Midi4J;
 
+import com.elemency.Midi4J.RtMidiDriver.RtMidiDirect;
+import com.elemency.Midi4J.RtMidiDriver.RtMidiForeign;
+import com.elemency.Midi4J.RtMidiDriver.RtMidiForeignHandler;
 import com.elemency.Midi4J.RtMidiDriver.RtMidiSysApiMgr;
 import com.elemency.Midi4J.RtMidiDriver.RtMidiDevice;
 import com.elemency.Midi4J.RtMidiDriver.RtMidiLibrary.size_t;
 import com.elemency.Midi4J.RtMidiDriver.RtMidiLibrary.size_tByReference;
 import com.sun.jna.Callback;
 import com.sun.jna.CallbackThreadInitializer;
+import com.sun.jna.Memory;
 import com.sun.jna.Native;
 import com.sun.jna.Pointer;
-import com.sun.jna.ptr.PointerByReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
 public class MidiIn extends MidiDevice {
     private final Logger logger = LoggerFactory.getLogger(MidiIn.class);
     private boolean hasCallback = false;
+    private boolean hasInternalCallback = false;
+    private AutoCloseable foreignCallback = null;
+    private volatile MidiMessagePool messagePool = null;
+    private volatile boolean immutableMessages = false;
+    private volatile MessageSink messageSink = null;
+    private volatile MidiInputFilter inputFilter = null;
+
+    // Reusable native out-parameters of getMessage and drain.
+    private static final int POLL_BUFFER_SIZE = 1024;
+    private final Object pollLock = new Object();
+    private final size_tByReference pollSize = new size_tByReference();
+    private Memory pollBuffer = null;
+    private double pollTimeStamp = 0;
+
+    // Native queue depth statistics, maintained by the polling methods.
+    private int queueSizeLimit = 100;
+    private int pollDepth = 0;
+    private volatile int nativeQueueHighWaterMark = 0;
+    private volatile long nativeQueueLimitReachedCount = 0;
 
     /**
      * MidiIn simple constructor.
@@ -47,7 +72,7 @@ public class MidiIn extends MidiDevice {
      */
     public MidiIn(boolean withUserCallback) {
         int api = RtMidiSysApiMgr.Api.UNSPECIFIED.getIntValue();
-        super.rtMidiDevice = create(api, super.sourceDeviceName, 100);
+        setRtMidiDevice(create(api, super.sourceDeviceName, queueSizeLimit));
 
         if (!withUserCallback) {
             String threadName = "native-" + sourceDeviceName;
@@ -79,7 +104,8 @@ public class MidiIn extends MidiDevice {
             sourceDeviceName = sourceDeviceName.replaceAll(":", " ");
             super.sourceDeviceName = sourceDeviceName;
         }
-        super.rtMidiDevice = create(api, super.sourceDeviceName, queueSizeLimit);
+        this.queueSizeLimit = queueSizeLimit;
+        setRtMidiDevice(create(api, super.sourceDeviceName, queueSizeLimit));
 
         if (!withUserCallback) {
             String threadName = "native-" + sourceDeviceName;
@@ -93,6 +119,15 @@ public class MidiIn extends MidiDevice {
     @Override
     public void close() {
         cancelCallback();
+        disableRingDispatch();
+        disableMessageQueue();
+
+        MessageSink sink = messageSink;
+        if (sink instanceof MidiInGroup.Input) {
+            ((MidiInGroup.Input) sink).leaveGroup();
+        }
+
+        messageSink = null;
         closeSourceDevice();
         freeMemory();
     }
@@ -107,6 +142,9 @@ public class MidiIn extends MidiDevice {
         }
 
         lib.rtmidi_in_free(rtMidiDevice);
+
+        // No upcall can be running any more.
+        RtMidiForeign.freeStubs(rtMidiDevice);
         logger.info(getSourceDeviceClassName() + " memory ... freed");
     }
 
@@ -149,6 +187,10 @@ public class MidiIn extends MidiDevice {
             throw new MidiException("This IN device is null - can't set its callback.");
         }
 
+        if (foreignCallback != null) {
+            cancelCallback();
+        }
+
         /*
          * The CallbackThreadInitializer ensures that the VM doesn't generate multiple Java Threads for the same
          * native thread. This must be done before attaching the thread to the VM.
@@ -159,6 +201,31 @@ public class MidiIn extends MidiDevice {
         lib.rtmidi_in_set_callback(rtMidiDevice, callback, userData);
         SmpteTimecode.setStartTime();
 
+        hasCallback = true;
+        hasInternalCallback = callback == fromNative;
+    }
+
+    /**
+     * Set the midi in callback to a java.lang.foreign upcall (JDK 22+, see {@link RtMidiForeign}), which
+     * hands the native message bytes over without JNA marshalling nor copy.
+     *
+     * @param handler       RtMidiForeignHandler receiving the messages
+     */
+    public void setForeignCallback(RtMidiForeignHandler handler) {
+
+        if (rtMidiDevice == null) {
+            throw new MidiException("This IN device is null - can't set its callback.");
+        }
+
+        if (!RtMidiForeign.isAvailable()) {
+            throw new MidiException("The java.lang.foreign backend isn't available on this runtime.");
+        }
+
+        cancelCallback();
+
+        foreignCallback = RtMidiForeign.setInputCallback(rtMidiDevice, handler);
+        SmpteTimecode.setStartTime();
+
         hasCallback = true;
     }
 
@@ -174,8 +241,21 @@ public class MidiIn extends MidiDevice {
         }
 
         logger.info("Cancelling IN callback...");
-        lib.rtmidi_in_cancel_callback(rtMidiDevice);
+
+        if (foreignCallback != null) {
+            try {
+                foreignCallback.close();
+            } catch (Exception e) {
+                throw new MidiException("Foreign callback couldn't be cancelled: " + e.getMessage());
+            } finally {
+                foreignCallback = null;
+            }
+        } else {
+            lib.rtmidi_in_cancel_callback(rtMidiDevice);
+        }
+
         hasCallback = false;
+        hasInternalCallback = false;
     }
 
     /**
@@ -195,6 +275,29 @@ public class MidiIn extends MidiDevice {
         lib.rtmidi_in_ignore_types(rtMidiDevice, midiStatus, midiTime, midiSense);
     }
 
+    /**
+     * Filter incoming messages on their channel, type and controller number, in addition to ignoreTypes.<br>
+     * The filter is evaluated on the native bytes, before any MidiMessage is created, by the internal
+     * callback, getMessage and drain.
+     *
+     * @param inputFilter   MidiInputFilter, or null to accept every message.
+     */
+    public void setInputFilter(MidiInputFilter inputFilter) {
+        this.inputFilter = inputFilter;
+    }
+
+    /**
+     * @return the input filter, or null when every message is accepted.
+     */
+    public MidiInputFilter getInputFilter() {
+        return inputFilter;
+    }
+
+    private boolean isAccepted(Pointer midiData, int midiDataSize) {
+        MidiInputFilter filter = inputFilter;
+        return filter == null || filter.accept(midiData, midiDataSize);
+    }
+
     /**
      * Get midi message from native via a polling loop instead of a callback.
      *
@@ -206,17 +309,417 @@ public class MidiIn extends MidiDevice {
             throw new NullPointerException("This IN device is null - can't poll raw midi messages.");
         }
 
-        PointerByReference message = new PointerByReference();
-        size_tByReference size = new size_tByReference();
-        MidiMessage midiMessage = null;
+        synchronized (pollLock) {
+            MidiMessage midiMessage = null;
+
+            while (midiMessage == null) {
+                int size = pollNative();
+
+                if (size == 0) {
+                    break;
+                }
+
+                if (size > 0 && isAccepted(pollBuffer, size)) {
+                    midiMessage = new MidiMessage(pollBuffer.getByteArray(0, size), size, pollTimeStamp, System.nanoTime());
+                }
+            }
+
+            return midiMessage;
+        }
+    }
+
+    /**
+     * Get all queued midi messages from native, in one go, via a polling loop instead of a callback.<br>
+     * The native out-parameters are reused from one call to the next, so draining doesn't allocate
+     * (beyond the growth of the given buffer).
+     *
+     * @param buffer    MidiBuffer receiving the messages (appended to its existing events)
+     * @param max       maximum number of messages to drain
+     * @return          number of messages drained, 0 when the native queue is empty.
+     */
+    public int drain(MidiBuffer buffer, int max) {
+
+        if (rtMidiDevice == null) {
+            throw new NullPointerException("This IN device is null - can't poll raw midi messages.");
+        }
+
+        synchronized (pollLock) {
+            int count = 0;
+
+            while (count < max) {
+                int size = pollNative();
+
+                if (size == 0) {
+                    break;
+                }
+
+                if (size > 0 && isAccepted(pollBuffer, size)) {
+                    buffer.append(pollBuffer, size, pollTimeStamp);
+                    count++;
+                }
+            }
+
+            return count;
+        }
+    }
+
+    /**
+     * Poll the next native message into the reusable poll buffer, its time stamp being left in pollTimeStamp.<br>
+     * A message too large for the buffer is lost (RtMidi has already dequeued it), the buffer
+     * growing so the next ones fit.
+     *
+     * @return  the message size, 0 when the native queue is empty, -1 when the message was lost.
+     */
+    private int pollNative() {
+        if (pollBuffer == null) {
+            pollBuffer = new Memory(POLL_BUFFER_SIZE);
+        }
+
+        pollSize.setLongValue(pollBuffer.size());
+        if (RtMidiDirect.isEnabled()) {
+            pollTimeStamp = RtMidiDirect.rtmidi_in_get_message(devicePointer, pollBuffer, pollSize.getPointer());
+        } else {
+            pollTimeStamp = lib.rtmidi_in_get_message(devicePointer, pollBuffer, pollSize);
+        }
+
+        long size = pollSize.getLongValue();
+        updateQueueDepth(size != 0);
+
+        if (size > pollBuffer.size()) {
+            logger.warn("{} bytes midi message lost - poll buffer too small ({} bytes).", size, pollBuffer.size());
+            pollBuffer = new Memory(Math.max(size, pollBuffer.size() << 1));
+            return -1;
+        }
+
+        return (int) size;
+    }
+
+    /**
+     * Track the number of messages polled since the native queue was last found empty: the deepest
+     * backlog seen, and how many times it reached the queue capacity (RtMidi keeps queueSizeLimit - 1
+     * messages and silently drops the next ones, without any signal the C API would expose).
+     *
+     * @param polled    true if a message was polled, false if the queue was empty
+     */
+    private void updateQueueDepth(boolean polled) {
+        if (!polled) {
+            pollDepth = 0;
+            return;
+        }
+
+        pollDepth++;
+
+        if (pollDepth > nativeQueueHighWaterMark) {
+            nativeQueueHighWaterMark = pollDepth;
+        }
+
+        if (pollDepth == Math.max(1, queueSizeLimit - 1)) {
+            nativeQueueLimitReachedCount++;
+        }
+    }
+
+    /**
+     * Return the queueSizeLimit this device was created with (size of the native queue read by
+     * getMessage and drain).
+     *
+     * @return int
+     */
+    public int getQueueSizeLimit() {
+        return queueSizeLimit;
+    }
+
+    /**
+     * Return the deepest native queue backlog seen by getMessage and drain: the largest number of messages
+     * polled in a row before finding the queue empty. Messages arriving while polling are included, so this
+     * is an upper estimate of the burst depth, to size queueSizeLimit from.
+     *
+     * @return int
+     */
+    public int getNativeQueueHighWaterMark() {
+        return nativeQueueHighWaterMark;
+    }
+
+    /**
+     * Return how many times getMessage and drain polled queueSizeLimit - 1 messages in a row before finding
+     * the native queue empty.<br>
+     * This is a heuristic, not a drop count: RtMidi doesn't report the messages it drops, and a steady stream
+     * arriving while polling keeps the run going just like a full queue does. A count growing with bursts
+     * suggests raising queueSizeLimit, or polling more often.
+     *
+     * @return long
+     */
+    public long getNativeQueueLimitReachedCount() {
+        return nativeQueueLimitReachedCount;
+    }
+
+    /**
+     * Return the number of messages dropped by the current ring, message queue or group queue of the internal
+     * callback (0 when its messages are broadcast).
+     *
+     * @return long
+     */
+    public long getDroppedCount() {
+        MessageSink sink = messageSink;
+        return sink != null ? sink.getDroppedCount() : 0;
+    }
+
+    /**
+     * Let the internal callback take its messages from a per-device pool of recyclable messages
+     * instead of allocating a new MidiMessage for each incoming event.<br>
+     * Listeners then only own a received message while in receiveMessage (see {@link MidiMessage#retain()}).
+     *
+     * @param poolSize  maximum number of idle messages kept per message size, rounded up to the next power of 2.
+     */
+    public void enableMessagePool(int poolSize) {
+        if (immutableMessages) {
+            throw new MidiException("Immutable messages can't be pooled - disable them first.");
+        }
+
+        messagePool = new MidiMessagePool(poolSize);
+    }
+
+    /**
+     * Go back to allocating a new MidiMessage for each incoming event.
+     */
+    public void disableMessagePool() {
+        messagePool = null;
+    }
+
+    /**
+     * @return true if the internal callback takes its messages from a pool.
+     */
+    public boolean isMessagePoolEnabled() {
+        return messagePool != null;
+    }
+
+    /**
+     * Let the internal callback create ImmutableMidiMessage instances, so a single message can be
+     * shared by all listeners without any defensive copy (see ImmutableMidiMessage about threads).
+     *
+     * @param immutableMessages true to deliver immutable messages, false for regular ones (default).
+     */
+    public void setImmutableMessages(boolean immutableMessages) {
+        if (immutableMessages && messagePool != null) {
+            throw new MidiException("Immutable messages can't be pooled - disable the message pool first.");
+        }
+
+        this.immutableMessages = immutableMessages;
+    }
+
+    /**
+     * @return true if the internal callback delivers immutable messages.
+     */
+    public boolean hasImmutableMessages() {
+        return immutableMessages;
+    }
+
+    /**
+     * Let the internal callback hand its messages over to a dedicated consumer thread through a preallocated,
+     * lock-free single-producer/single-consumer ring, instead of the (locked, shared) broadcaster executor.<br>
+     * The consumer calls the broadcaster listeners directly (see {@link Broadcaster#dispatch(UUID, MidiMessage, Pointer)}),
+     * so a message is only valid until receiveMessage returns, unless retained. Messages arriving while the ring
+     * is full are dropped and counted (see {@link #getRingDroppedCount()}).
+     *
+     * @param capacity      ring size, rounded up to the next power of 2.
+     * @param waitStrategy  how the consumer waits for messages: BUSY_SPIN, YIELD or PARK.
+     */
+    public synchronized void enableRingDispatch(int capacity, WaitStrategy waitStrategy) {
+        disableRingDispatch();
+        checkNoMessageSink("Ring dispatch");
+        setMessageSink(new RingDispatcher(uuid, capacity, waitStrategy, "ring-" + sourceDeviceName));
+    }
+
+    /**
+     * Go back to broadcasting through the broadcaster executor, once the pending ring messages are delivered.
+     */
+    public synchronized void disableRingDispatch() {
+        MessageSink sink = messageSink;
+
+        if (sink instanceof RingDispatcher) {
+            messageSink = null;
+            ((RingDispatcher) sink).stop();
+        }
+    }
+
+    /**
+     * @return true if the internal callback hands its messages over through a ring.
+     */
+    public boolean isRingDispatchEnabled() {
+        return messageSink instanceof RingDispatcher;
+    }
+
+    /**
+     * Return the number of messages dropped because the dispatch ring was full (0 when disabled).
+     *
+     * @return long
+     */
+    public long getRingDroppedCount() {
+        MessageSink sink = messageSink;
+        return sink instanceof RingDispatcher ? sink.getDroppedCount() : 0;
+    }
+
+    /**
+     * Let the internal callback feed a bounded queue read with {@link #take()} or {@link #poll(long, TimeUnit)},
+     * instead of broadcasting its messages: a polling application then sleeps until a message arrives rather
+     * than looping over {@link #getMessage()}.<br>
+     * The internal callback replaces any user callback. Messages arriving while the queue is full are dropped
+     * and counted (see {@link #getQueueDroppedCount()}).
+     *
+     * @param capacity  maximum number of pending messages.
+     */
+    public synchronized void enableMessageQueue(int capacity) {
+        enableMessageQueue(capacity, capacity);
+    }
+
+    /**
+     * Same as {@link #enableMessageQueue(int)}, the queue doubling its capacity whenever full, up to maxCapacity,
+     * rather than dropping messages: its size then settles on the deepest burst actually received
+     * (see {@link #getQueueCapacity()} and {@link #getQueueHighWaterMark()}).
+     *
+     * @param capacity      initial maximum number of pending messages.
+     * @param maxCapacity   maximum number of pending messages the queue may grow to.
+     */
+    public synchronized void enableMessageQueue(int capacity, int maxCapacity) {
+        disableMessageQueue();
+        checkNoMessageSink("Message queue");
+        setMessageSink(new MidiMessageQueue(capacity, maxCapacity));
+    }
 
-        double timesStamp = lib.rtmidi_in_get_message(rtMidiDevice, message, size);
+    /**
+     * Go back to broadcasting incoming messages. Pending messages are discarded and blocked
+     * take/poll calls return null.
+     */
+    public synchronized void disableMessageQueue() {
+        MessageSink sink = messageSink;
 
-        if (size.getValue().intValue() > 0) {
-            midiMessage = new MidiMessage(message.getPointer(), size.getValue(), timesStamp);
+        if (sink instanceof MidiMessageQueue) {
+            messageSink = null;
+            ((MidiMessageQueue) sink).close();
         }
+    }
 
-        return midiMessage;
+    /**
+     * @return true if the internal callback feeds the message queue.
+     */
+    public boolean isMessageQueueEnabled() {
+        return messageSink instanceof MidiMessageQueue;
+    }
+
+    /**
+     * Return the oldest queued message, waiting for one to arrive if needed
+     * (see {@link #enableMessageQueue(int)}).<br>
+     * A pooled message must be released by the caller once processed.
+     *
+     * @return  MidiMessage, or null if the queue got disabled while waiting.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public MidiMessage take() throws InterruptedException {
+        return getMessageQueue().take();
+    }
+
+    /**
+     * Return the oldest queued message, waiting up to the given time for one to arrive if needed
+     * (see {@link #enableMessageQueue(int)}).<br>
+     * A pooled message must be released by the caller once processed.
+     *
+     * @param timeout   maximum time to wait
+     * @param unit      time unit of the timeout
+     * @return          MidiMessage, or null if none arrived in time (or the queue got disabled).
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public MidiMessage poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return getMessageQueue().poll(timeout, unit);
+    }
+
+    /**
+     * Return the number of messages dropped because the message queue was full (0 when disabled).
+     *
+     * @return long
+     */
+    public long getQueueDroppedCount() {
+        MessageSink sink = messageSink;
+        return sink instanceof MidiMessageQueue ? sink.getDroppedCount() : 0;
+    }
+
+    /**
+     * Return the current capacity of the message queue (0 when disabled).
+     *
+     * @return int
+     */
+    public int getQueueCapacity() {
+        MessageSink sink = messageSink;
+        return sink instanceof MidiMessageQueue ? ((MidiMessageQueue) sink).getCapacity() : 0;
+    }
+
+    /**
+     * Return the largest number of messages the message queue has held at once (0 when disabled).
+     *
+     * @return int
+     */
+    public int getQueueHighWaterMark() {
+        MessageSink sink = messageSink;
+        return sink instanceof MidiMessageQueue ? ((MidiMessageQueue) sink).getHighWaterMark() : 0;
+    }
+
+    private MidiMessageQueue getMessageQueue() {
+        MessageSink sink = messageSink;
+
+        if (!(sink instanceof MidiMessageQueue)) {
+            throw new MidiException("The message queue of this IN device isn't enabled - see enableMessageQueue.");
+        }
+
+        return (MidiMessageQueue) sink;
+    }
+
+    private void checkNoMessageSink(String mode) {
+        if (messageSink != null) {
+            throw new MidiException(mode + " can't be enabled - the messages of this IN device already go to a "
+                    + messageSink.getClass().getSimpleName() + ".");
+        }
+    }
+
+    /**
+     * Route the internal callback messages to the given sink instead of the broadcaster, setting the
+     * internal callback (in place of any user callback) if needed.
+     *
+     * @param sink  MessageSink, or null to go back to broadcasting.
+     */
+    synchronized void setMessageSink(MessageSink sink) {
+        messageSink = sink;
+
+        if (sink != null && !hasInternalCallback) {
+            cancelCallback();
+            setCallback(fromNative, "native-" + sourceDeviceName, null);
+        }
+    }
+
+    /**
+     * @return the sink receiving the internal callback messages, or null when they are broadcast.
+     */
+    MessageSink getMessageSink() {
+        return messageSink;
+    }
+
+    /**
+     * Receiver of the internal callback messages, in place of the broadcaster.
+     */
+    interface MessageSink {
+
+        /**
+         * Hand a message over (called on the native callback thread). The sink then owns the
+         * caller's reference and releases it, including when the message is dropped.
+         *
+         * @param midiMessage   MidiMessage
+         * @return              false when the message was dropped.
+         */
+        boolean offer(MidiMessage midiMessage);
+
+        /**
+         * Return the number of messages dropped by this sink.
+         *
+         * @return long
+         */
+        long getDroppedCount();
     }
 
     /**
@@ -238,12 +741,37 @@ public class MidiIn extends MidiDevice {
      * with param 'withUserCallback' set to false.
      */
     private final MidiInCallback fromNative = (timeStamp, midiData, midiDataSize, userData) -> {
+        long arrivalTime = System.nanoTime();
 
         try {
-            /* Create a new MidiMessage (based on incoming native raw data) and
+            // Drop filtered out messages before creating anything.
+            if (!isAccepted(midiData, midiDataSize.intValue())) {
+                return;
+            }
+
+            /* Create a new (or recycle a pooled) MidiMessage based on incoming native raw data and
             sends it to our application. */
-            MidiMessage midiMessage = new MidiMessage(midiData, midiDataSize, timeStamp);
-            Broadcaster.broadcast(uuid, midiMessage, userData);
+            MidiMessagePool pool = messagePool;
+            MidiMessage midiMessage;
+
+            if (pool != null) {
+                midiMessage = pool.acquire(midiData, midiDataSize.intValue(), timeStamp);
+                midiMessage.setArrivalTime(arrivalTime);
+            } else if (immutableMessages) {
+                midiMessage = new ImmutableMidiMessage(midiData, midiDataSize, timeStamp, arrivalTime);
+            } else {
+                midiMessage = new MidiMessage(midiData, midiDataSize, timeStamp, arrivalTime);
+            }
+
+            MessageSink sink = messageSink;
+
+            if (sink != null) {
+                // The sink now owns (and releases) the message.
+                sink.offer(midiMessage);
+            } else {
+                Broadcaster.broadcast(uuid, midiMessage, userData);
+                midiMessage.release();
+            }
 
         } catch (MidiException | NullPointerException me) {
             me.printStackTrace();
@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Merges the messages of several MidiIn devices, each received on its own native thread, into a single
+ * stream ordered by arrival time and delivered to one listener on one consumer thread.<br><br>
+ *
+ * Each device hands its messages over to its own lock-free single-producer/single-consumer queue, ordered
+ * by their arrival time (see {@link MidiMessage#getArrivalTime()}, unstamped messages being stamped with
+ * System.nanoTime() when handed over). The consumer repeatedly takes the oldest head of all queues (k-way merge).
+ * A message is only delivered once it is older than the reorder window, giving messages in flight on another
+ * device thread the time to show up: 0 delivers as soon as possible, a few hundred microseconds guarantee
+ * the order across devices under load.<br><br>
+ *
+ * Messages arriving while the queue of their device is full are dropped and counted. A device leaves
+ * its group when closed.<br>
+ * The listener receives the uuid of the source device and a null userData (the internal callback is registered
+ * without any); a pooled message is only valid until it returns.
+ */
+public class MidiInGroup implements AutoCloseable {
+    private final Logger logger = LoggerFactory.getLogger(MidiInGroup.class);
+
+    private final int queueCapacity;
+    private final long reorderWindowNanos;
+    private final WaitStrategy waitStrategy;
+    private final Broadcaster.BroadcastListener listener;
+    private final Thread consumer;
+    private volatile Input[] inputs = new Input[0];
+    private long removedDroppedCount = 0;
+    private volatile boolean running = true;
+
+    /**
+     * @param queueCapacity         per device queue size, rounded up to the next power of 2.
+     * @param reorderWindowNanos    minimum age (ns) of a message before delivery.
+     * @param waitStrategy          how the consumer waits for messages: BUSY_SPIN, YIELD or PARK.
+     * @param listener              BroadcastListener receiving the merged stream.
+     */
+    public MidiInGroup(int queueCapacity, long reorderWindowNanos, WaitStrategy waitStrategy,
+                       Broadcaster.BroadcastListener listener) {
+
+        if (waitStrategy == null || listener == null) {
+            throw new NullPointerException("waitStrategy or listener is 'null' - can't create a midi in group.");
+        }
+
+        if (reorderWindowNanos < 0) {
+            throw new MidiException("The reorder window can't be negative.");
+        }
+
+        this.queueCapacity = SpscRingBuffer.roundCapacity(queueCapacity);
+        this.reorderWindowNanos = reorderWindowNanos;
+        this.waitStrategy = waitStrategy;
+        this.listener = listener;
+
+        consumer = new Thread(this::run, "midi-in-group");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Add a device to the group: its internal callback messages now go to the group instead of the broadcaster.
+     *
+     * @param midiIn    MidiIn
+     */
+    public synchronized void add(MidiIn midiIn) {
+        if (!running) {
+            throw new MidiException("This midi in group is closed.");
+        }
+
+        synchronized (midiIn) {
+            if (midiIn.getMessageSink() != null) {
+                throw new MidiException(midiIn.getSourceDeviceName() + " messages already go to a "
+                        + midiIn.getMessageSink().getClass().getSimpleName() + ".");
+            }
+
+            midiIn.setMessageSink(addSource(midiIn.getSourceDeviceUUID()));
+        }
+    }
+
+    /**
+     * Add a source queue to the merge.
+     *
+     * @param uuid  uuid of the source device
+     * @return      MessageSink to feed from the source device callback thread.
+     */
+    synchronized MidiIn.MessageSink addSource(UUID uuid) {
+        Input input = new Input(this, uuid, queueCapacity);
+
+        Input[] current = inputs;
+        Input[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = input;
+        inputs = updated;
+
+        return input;
+    }
+
+    /**
+     * Remove a device from the group: its messages go back to the broadcaster, the pending ones being discarded.
+     *
+     * @param midiIn    MidiIn
+     */
+    public synchronized void remove(MidiIn midiIn) {
+        for (Input input : inputs) {
+            if (input.uuid.equals(midiIn.getSourceDeviceUUID())) {
+                synchronized (midiIn) {
+                    if (midiIn.getMessageSink() == input) {
+                        midiIn.setMessageSink(null);
+                    }
+                }
+
+                removeInput(input);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Take a source queue out of the merge, its pending messages being discarded.
+     *
+     * @param input Input
+     */
+    private synchronized void removeInput(Input input) {
+        Input[] current = inputs;
+        input.close();
+
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == input) {
+                Input[] updated = new Input[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                inputs = updated;
+
+                // Keep its drops in the group total.
+                removedDroppedCount += input.getDroppedCount();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Return the number of devices in the group.
+     *
+     * @return int
+     */
+    public int size() {
+        return inputs.length;
+    }
+
+    /**
+     * Return the number of messages dropped because the queue of their device was full, devices
+     * removed from the group included.
+     *
+     * @return long
+     */
+    public synchronized long getDroppedCount() {
+        long count = removedDroppedCount;
+
+        for (Input input : inputs) {
+            count += input.getDroppedCount();
+        }
+
+        return count;
+    }
+
+    /**
+     * Stop the consumer thread once it has delivered the pending messages. The devices are left
+     * untouched: close or remove them first so their messages don't keep going to the group.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(consumer);
+
+        try {
+            consumer.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            if (!deliverOldest(false)) {
+                waitStrategy.idle();
+            }
+        }
+
+        // Deliver what was already handed over.
+        boolean delivered = true;
+        while (delivered) {
+            delivered = deliverOldest(true);
+        }
+    }
+
+    /**
+     * Deliver the oldest head of all queues, if old enough.
+     *
+     * @param flush true to ignore the reorder window
+     * @return      true if a message was delivered.
+     */
+    private boolean deliverOldest(boolean flush) {
+        Input oldest = null;
+        long oldestStamp = 0;
+
+        for (Input input : inputs) {
+            MidiMessage head = input.messages.peek();
+
+            if (head != null && (oldest == null || head.getArrivalTime() - oldestStamp < 0)) {
+                oldest = input;
+                oldestStamp = head.getArrivalTime();
+            }
+        }
+
+        if (oldest == null || (!flush && System.nanoTime() - oldestStamp < reorderWindowNanos)) {
+            return false;
+        }
+
+        MidiMessage midiMessage = oldest.messages.poll();
+
+        try {
+            listener.receiveMessage(oldest.uuid, midiMessage, null);
+        } catch (RuntimeException re) {
+            logger.error("Midi in group listener failed.", re);
+        } finally {
+            midiMessage.release();
+        }
+
+        return true;
+    }
+
+    /**
+     * Queue of one device, fed by its callback thread and drained by the consumer thread.
+     */
+    static final class Input implements MidiIn.MessageSink {
+        private final MidiInGroup group;
+        private final UUID uuid;
+        private final SpscRingBuffer<MidiMessage> messages;
+        private final AtomicLong droppedCount = new AtomicLong();
+        private volatile boolean closed = false;
+
+        Input(MidiInGroup group, UUID uuid, int capacity) {
+            this.group = group;
+            this.uuid = uuid;
+            this.messages = new SpscRingBuffer<>(capacity);
+        }
+
+        @Override
+        public boolean offer(MidiMessage midiMessage) {
+            // Messages from the internal callback are always stamped, others are stamped on hand over.
+            if (midiMessage.getArrivalTime() == 0) {
+                midiMessage.setArrivalTime(System.nanoTime());
+            }
+
+            if (closed || !messages.offer(midiMessage)) {
+                droppedCount.lazySet(droppedCount.get() + 1);
+                midiMessage.release();
+                return false;
+            }
+
+            return true;
+        }
+
+        @Override
+        public long getDroppedCount() {
+            return droppedCount.get();
+        }
+
+        /**
+         * Take this queue out of its group (the device being closed).
+         */
+        void leaveGroup() {
+            group.removeInput(this);
+        }
+
+        /**
+         * Stop accepting messages. The pending ones are left for the garbage collector: a pooled
+         * message not released is simply not recycled.
+         */
+        void close() {
+            closed = true;
+        }
+    }
+}
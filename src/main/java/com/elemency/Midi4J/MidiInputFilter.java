@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import com.sun.jna.Pointer;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Channel, message type and controller number filter evaluated on the raw bytes of incoming messages,
+ * before any MidiMessage is created (see {@link MidiIn#setInputFilter(MidiInputFilter)}).<br><br>
+ *
+ * The configuration is compiled into a 256 bit status table and a 128 bit controller table, so testing
+ * a message only costs one or two byte reads and bit tests. Everything is accepted by default.<br>
+ * Setters may be called while messages are being received: each message sees either the old or the new
+ * configuration.
+ */
+public class MidiInputFilter {
+
+    private volatile Tables tables;
+    private int channelMask = 0xFFFF;
+    private EnumSet<MidiMessage.MessageType> types = EnumSet.allOf(MidiMessage.MessageType.class);
+    private long controllersLow = -1L;
+    private long controllersHigh = -1L;
+
+    public MidiInputFilter() {
+        compile();
+    }
+
+    /**
+     * Accept channel messages on the given channels only, system messages being left to the type filter.
+     *
+     * @param channelMask   bit n set to accept channel n + 1 (0x0001 = channel 1, 0xFFFF = all channels)
+     * @return              this MidiInputFilter
+     */
+    public synchronized MidiInputFilter setChannelMask(int channelMask) {
+        this.channelMask = channelMask & 0xFFFF;
+        compile();
+        return this;
+    }
+
+    /**
+     * @return the accepted channels mask (bit n set for channel n + 1).
+     */
+    public synchronized int getChannelMask() {
+        return channelMask;
+    }
+
+    /**
+     * Accept messages of the given types only (a note-on of velocity 0 being a NOTE_ON).
+     *
+     * @param types accepted types
+     * @return      this MidiInputFilter
+     */
+    public synchronized MidiInputFilter setTypes(Set<MidiMessage.MessageType> types) {
+        this.types = types.isEmpty() ? EnumSet.noneOf(MidiMessage.MessageType.class) : EnumSet.copyOf(types);
+        compile();
+        return this;
+    }
+
+    /**
+     * @return a copy of the accepted types.
+     */
+    public synchronized Set<MidiMessage.MessageType> getTypes() {
+        return EnumSet.copyOf(types);
+    }
+
+    /**
+     * Accept or reject control changes of the given controller number.
+     *
+     * @param controller    controller number (0 - 127)
+     * @param accept        true to accept, false to reject
+     * @return              this MidiInputFilter
+     */
+    public synchronized MidiInputFilter setControllerAccepted(int controller, boolean accept) {
+        if (controller < 0 || controller > 127) {
+            throw new MidiException("A controller number should be in the range 0 to 127.");
+        }
+
+        long bit = 1L << (controller & 63);
+
+        if (controller < 64) {
+            controllersLow = accept ? controllersLow | bit : controllersLow & ~bit;
+        } else {
+            controllersHigh = accept ? controllersHigh | bit : controllersHigh & ~bit;
+        }
+
+        compile();
+        return this;
+    }
+
+    /**
+     * Accept or reject control changes of every controller number.
+     *
+     * @param accept    true to accept, false to reject
+     * @return          this MidiInputFilter
+     */
+    public synchronized MidiInputFilter setAllControllersAccepted(boolean accept) {
+        controllersLow = accept ? -1L : 0;
+        controllersHigh = controllersLow;
+        compile();
+        return this;
+    }
+
+    /**
+     * @param controller    controller number (0 - 127)
+     * @return              true if control changes of this controller are accepted.
+     */
+    public boolean isControllerAccepted(int controller) {
+        return tables.acceptsController(controller & 0x7F);
+    }
+
+    /**
+     * Test a native message.
+     *
+     * @param data  native midi data
+     * @param size  midi data size
+     * @return      true if the message passes the filter.
+     */
+    public boolean accept(Pointer data, int size) {
+        if (size <= 0) {
+            return true;
+        }
+
+        Tables current = tables;
+        int status = data.getByte(0) & 0xFF;
+
+        if (!current.acceptsStatus(status)) {
+            return false;
+        }
+
+        return (status & 0xF0) != 0xB0 || size < 2 || current.acceptsController(data.getByte(1) & 0x7F);
+    }
+
+    /**
+     * Test a message held in a byte array.
+     *
+     * @param data      midi data
+     * @param offset    offset of the message in data
+     * @param size      midi data size
+     * @return          true if the message passes the filter.
+     */
+    public boolean accept(byte[] data, int offset, int size) {
+        if (size <= 0) {
+            return true;
+        }
+
+        Tables current = tables;
+        int status = data[offset] & 0xFF;
+
+        if (!current.acceptsStatus(status)) {
+            return false;
+        }
+
+        return (status & 0xF0) != 0xB0 || size < 2 || current.acceptsController(data[offset + 1] & 0x7F);
+    }
+
+    private void compile() {
+        long[] statuses = new long[4];
+
+        for (int status = 0; status < 256; status++) {
+            // Data bytes (no status) are left for the parser downstream to deal with.
+            boolean accepted = status < 0x80
+                    || (types.contains(MidiMessage.classify(status))
+                    && (status >= 0xF0 || (channelMask & (1 << (status & 0x0F))) != 0));
+
+            if (accepted) {
+                statuses[status >> 6] |= 1L << (status & 63);
+            }
+        }
+
+        tables = new Tables(statuses, controllersLow, controllersHigh);
+    }
+
+    /**
+     * Immutable compiled configuration, swapped as a whole on each change.
+     */
+    private static final class Tables {
+        private final long[] statuses;
+        private final long controllersLow;
+        private final long controllersHigh;
+
+        Tables(long[] statuses, long controllersLow, long controllersHigh) {
+            this.statuses = statuses;
+            this.controllersLow = controllersLow;
+            this.controllersHigh = controllersHigh;
+        }
+
+        boolean acceptsStatus(int status) {
+            return (statuses[status >> 6] & (1L << (status & 63))) != 0;
+        }
+
+        boolean acceptsController(int controller) {
+            long bits = controller < 64 ? controllersLow : controllersHigh;
+            return (bits & (1L << (controller & 63))) != 0;
+        }
+    }
+}
@@ -35,7 +35,10 @@ package com.elemency.Midi4J;
 import com.elemency.Midi4J.RtMidiDriver.RtMidiLibrary.size_t;
 import com.sun.jna.Pointer;
 
+import java.io.IOException;
+import java.nio.CharBuffer;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  *
@@ -46,9 +49,74 @@ import java.util.Arrays;
  */
 public class MidiMessage implements Cloneable {
 
-    private final int midiDataSize;
+    private static final AtomicIntegerFieldUpdater<MidiMessage> REF_COUNT =
+            AtomicIntegerFieldUpdater.newUpdater(MidiMessage.class, "refCount");
+
+    private int midiDataSize;
     private byte[] midiData;
     private double timeStamp;
+    private long arrivalTime = 0;
+
+    // Set when this instance belongs to a MidiMessagePool.
+    private MidiMessagePool pool = null;
+    private volatile int refCount = 0;
+
+    // Precomputed formatting tables (see appendDescription and appendMidiDataHexString).
+    private static final String[] NOTE_NAMES = new String[128];
+    private static final String[] HEX_BYTES = new String[256];
+    private static final String[] CONTROLLER_NAMES = {
+            "Bank Select", "Modulation Wheel (coarse)", "Breath controller (coarse)",
+            "--",
+            "Foot Pedal (coarse)", "Portamento Time (coarse)", "Data Entry (coarse)",
+            "Volume (coarse)", "Balance (coarse)",
+            "--",
+            "Pan position (coarse)", "Expression (coarse)", "Effect Control 1 (coarse)",
+            "Effect Control 2 (coarse)",
+            "--", "--",
+            "General Purpose Slider 1", "General Purpose Slider 2",
+            "General Purpose Slider 3", "General Purpose Slider 4",
+            "--", "--", "--", "--", "--", "--", "--", "--", "--", "--", "--", "--",
+            "Bank Select (fine)", "Modulation Wheel (fine)", "Breath controller (fine)",
+            "--",
+            "Foot Pedal (fine)", "Portamento Time (fine)", "Data Entry (fine)", "Volume (fine)",
+            "Balance (fine)", "--", "Pan position (fine)", "Expression (fine)",
+            "Effect Control 1 (fine)", "Effect Control 2 (fine)",
+            "--", "--", "--", "--", "--", "--", "--", "--", "--",
+            "--", "--", "--", "--", "--", "--", "--", "--", "--",
+            "Hold Pedal (on/off)", "Portamento (on/off)", "Sustenuto Pedal (on/off)", "Soft Pedal (on/off)",
+            "Legato Pedal (on/off)", "Hold 2 Pedal (on/off)", "Sound Variation", "Sound Timbre",
+            "Sound Release Time", "Sound Attack Time", "Sound Brightness", "Sound Control 6",
+            "Sound Control 7", "Sound Control 8", "Sound Control 9", "Sound Control 10",
+            "General Purpose Button 1 (on/off)", "General Purpose Button 2 (on/off)",
+            "General Purpose Button 3 (on/off)", "General Purpose Button 4 (on/off)",
+            "--", "--", "--", "--", "--", "--", "--",
+            "Reverb Level", "Tremolo Level", "Chorus Level", "Celeste Level",
+            "Phaser Level", "Data Button increment", "Data Button decrement", "Non-registered Parameter (fine)",
+            "Non-registered Parameter (coarse)", "Registered Parameter (fine)", "Registered Parameter (coarse)",
+            "--", "--", "--", "--", "--", "--", "--", "--", "--",
+            "--", "--", "--", "--", "--", "--", "--", "--", "--",
+            "All Sound Off", "All Controllers Off", "Local Keyboard (on/off)", "All Notes Off",
+            "Omni Mode Off", "Omni Mode On", "Mono Operation", "Poly Operation"
+    };
+
+    // Status byte lookup tables (see classify and getMessageLength).
+    private static final MessageType[] MESSAGE_TYPES = new MessageType[256];
+    private static final byte[] MESSAGE_LENGTHS = new byte[256];
+
+    static {
+        for (int status = 0; status < 256; status++) {
+            MESSAGE_TYPES[status] = MessageType.fromStatusByte(status);
+            MESSAGE_LENGTHS[status] = (byte) computeMessageLength(status);
+        }
+
+        for (int i = 0; i < NOTE_NAMES.length; i++) {
+            NOTE_NAMES[i] = getNoteName(i, true, true, 3);
+        }
+
+        for (int i = 0; i < HEX_BYTES.length; i++) {
+            HEX_BYTES[i] = "0x" + Integer.toHexString(i).toUpperCase();
+        }
+    }
 
     /**
      * Creates a 3-byte short midi message.
@@ -137,6 +205,19 @@ public class MidiMessage implements Cloneable {
         this.midiData = midiData;
     }
 
+    /**
+     * Creates a midi message from a block of data, keeping the arrival time of the message it derives from.
+     *
+     * @param midiData      midi message set in a byte[]
+     * @param datasize      midi message size
+     * @param timeStamp     time stamp
+     * @param arrivalTime   System.nanoTime() at reception, 0 if not received from a device
+     */
+    MidiMessage(byte[] midiData, int datasize, double timeStamp, long arrivalTime) {
+        this(midiData, datasize, timeStamp);
+        this.arrivalTime = arrivalTime;
+    }
+
     /***
      * Creates a midi message from a native jna block of data.
      *
@@ -166,19 +247,105 @@ public class MidiMessage implements Cloneable {
         midiData.read(0, this.midiData, 0, this.midiDataSize);
     }
 
+    /**
+     * Creates a received midi message from a native jna block of data.
+     *
+     * @param midiData      midi message set in a jna pointer
+     * @param midiDataSize  midi message size (jnaerator native)
+     * @param timeStamp     time stamp
+     * @param arrivalTime   System.nanoTime() at reception
+     */
+    MidiMessage(Pointer midiData, size_t midiDataSize, double timeStamp, long arrivalTime) {
+        this(midiData, midiDataSize, timeStamp);
+        this.arrivalTime = arrivalTime;
+    }
+
+    /**
+     * Creates an empty recyclable midi message owned by a pool.
+     *
+     * @param midiDataSize  midi message size
+     * @param pool          owner pool
+     */
+    MidiMessage(int midiDataSize, MidiMessagePool pool) {
+        this.midiDataSize = midiDataSize;
+        this.midiData = new byte[midiDataSize];
+        this.pool = pool;
+    }
+
+    /**
+     * Refill a pooled midi message with native data, the caller becoming its only owner.
+     *
+     * @param midiData      midi message set in a jna pointer
+     * @param midiDataSize  midi message size, must match the size of this message
+     * @param timeStamp     time stamp
+     */
+    void refill(Pointer midiData, int midiDataSize, double timeStamp) {
+        midiData.read(0, this.midiData, 0, midiDataSize);
+        this.midiDataSize = midiDataSize;
+        this.timeStamp = timeStamp;
+        this.arrivalTime = 0;
+        refCount = 1;
+    }
+
+    /**
+     * Returns true if this message comes from a MidiMessagePool and is recycled once released.
+     *
+     * @return boolean
+     */
+    public boolean isPooled() {
+        return pool != null;
+    }
+
+    /**
+     * Take an additional reference on a pooled message so it stays valid after the current
+     * listener returns. Each retain must be balanced by a {@link #release()}.<br>
+     * Does nothing for non pooled messages.
+     *
+     * @return this MidiMessage
+     */
+    public MidiMessage retain() {
+        if (pool != null) {
+            REF_COUNT.incrementAndGet(this);
+        }
+
+        return this;
+    }
+
+    /**
+     * Give back a reference on a pooled message, the message going back to its pool when
+     * its last reference is released. It must not be used anymore afterwards.<br>
+     * Does nothing for non pooled messages.
+     */
+    public void release() {
+        if (pool == null) {
+            return;
+        }
+
+        int count = REF_COUNT.decrementAndGet(this);
+
+        if (count == 0) {
+            pool.recycle(this);
+
+        } else if (count < 0) {
+            throw new MidiException("Pooled midi message released more times than it was retained.");
+        }
+    }
+
     /***
      * Returns the message length based on status byte.
      * @param byte0 status byte of message to be measured.
      * @return int
      */
     public static int getMessageLength(int byte0) {
-        int cmd = byte0 & 0xFF;
+        return MESSAGE_LENGTHS[byte0 & 0xFF];
+    }
 
+    private static int computeMessageLength(int cmd) {
         int length = -1;
 
         if (cmd >= 0x80 && cmd <= 0xBF || cmd >= 0xE0 && cmd <= 0xEF || cmd == 0xF2) {
             length = 3;
-        } else if (cmd >= 0xC0 && cmd <= 0xDF || cmd == 0xF3 || cmd == 0xF5) {
+        } else if (cmd >= 0xC0 && cmd <= 0xDF || cmd == 0xF1 || cmd == 0xF3 || cmd == 0xF5) {
             length = 2;
         } else if (cmd != 0xF0 && cmd != 0xF7){
             length = 1;
@@ -187,6 +354,31 @@ public class MidiMessage implements Cloneable {
         return length;
     }
 
+    /**
+     * Returns the type of a midi message based on its status byte, in a single table lookup.
+     *
+     * @param byte0 status byte of the message to be classified.
+     * @return      MessageType
+     */
+    public static MessageType classify(int byte0) {
+        return MESSAGE_TYPES[byte0 & 0xFF];
+    }
+
+    /**
+     * Returns the type of the current midi message instance, in a single table lookup,
+     * so dispatch code can switch once per message.<br>
+     * A note-on with a velocity of 0 is classified as NOTE_ON (see {@link #isNoteOff(boolean)}).
+     *
+     * @return MessageType
+     */
+    public MessageType classify() {
+        if (midiData == null) {
+            throw new NullPointerException("midiData is 'null' - can't classify it.");
+        }
+
+        return MESSAGE_TYPES[midiData[0] & 0xFF];
+    }
+
     /***
      * Returns the name of a midi note number assuming sharpened notes
      * with Octave number appended and octave 3 for Middle C.
@@ -198,7 +390,7 @@ public class MidiMessage implements Cloneable {
     public static String getNoteName(int noteNumber)
     {
         if (noteNumber > 0 && noteNumber < 128) {
-            return getNoteName(noteNumber, true, true, 3);
+            return NOTE_NAMES[noteNumber];
         }
 
         return "--";
@@ -542,6 +734,29 @@ public class MidiMessage implements Cloneable {
         return midiData;
     }
 
+    /**
+     * The current midi data block, as is, for internal readers which never modify it.
+     *
+     * @return byte[]
+     */
+    byte[] rawMidiData() {
+        if (midiData == null) {
+            throw new NullPointerException("midiData is 'null' - can't return it.");
+        }
+
+        return midiData;
+    }
+
+    /**
+     * Returns an immutable copy of this message, safe to share between listeners and threads
+     * (see {@link ImmutableMidiMessage}).
+     *
+     * @return ImmutableMidiMessage
+     */
+    public ImmutableMidiMessage toImmutable() {
+        return ImmutableMidiMessage.copyOf(this);
+    }
+
     /***
      * Get the current midi data block size
      *
@@ -561,133 +776,231 @@ public class MidiMessage implements Cloneable {
      * @return "Note On C#3 Velocity 120 Channel 1"
      */
     public String getDescription() {
-        if (midiData == null) {
-            throw new NullPointerException("midiData is 'null' - can't return its description");
-        }
-
-        if (isNoteOn(false)) {
+        return appendDescription(new StringBuilder(48)).toString();
+    }
 
-            return String.format(
-                    "Note ON  %-4s Velocity %03d Channel %02d",
-                    getNoteName(getNoteNumber(), true, true, 3),
-                    getVelocity(),
-                    getChannel()
-            );
+    /**
+     * Appends a human-readable description of the midi message to a caller supplied StringBuilder,
+     * without any intermediate allocation (see {@link #getDescription()}).
+     *
+     * @param out   StringBuilder receiving the description
+     * @return      out
+     */
+    public StringBuilder appendDescription(StringBuilder out) {
+        try {
+            appendDescriptionTo(out);
+        } catch (IOException e) {
+            throw new MidiException(e);
         }
 
-        if (isNoteOff(true)) {
-            return String.format(
-                    "Note OFF %-4s Velocity %03d Channel %02d",
-                    getNoteName(getNoteNumber(), true, true, 3),
-                    getVelocity(),
-                    getChannel()
-            );
-        }
+        return out;
+    }
 
-        if (isProgramChange()) {
-            return String.format(
-                    "Program change %03d Channel %02d",
-                    getProgramChangeNumber(),
-                    getChannel()
-            );
+    /**
+     * Appends a human-readable description of the midi message to a caller supplied CharBuffer,
+     * without any intermediate allocation (see {@link #getDescription()}).
+     *
+     * @param out   CharBuffer receiving the description
+     * @return      out
+     */
+    public CharBuffer appendDescription(CharBuffer out) {
+        try {
+            appendDescriptionTo(out);
+        } catch (IOException e) {
+            throw new MidiException(e);
         }
 
-        if (isPitchWheel()) {
-            return String.format(
-                    "Pitchbend %05d Channel %02d",
-                    getPitchWheelValue(),
-                    getChannel()
-            );
-        }
+        return out;
+    }
 
-        if (isPolyAftertouch()) {
-            return String.format(
-                    "Poly Aftertouch %-4s: %03d Channel %02d",
-                    getNoteName(getNoteNumber(), true, true, 3),
-                    getPolyAftertouchValue(),
-                    getChannel()
-            );
+    private void appendDescriptionTo(Appendable out) throws IOException {
+        if (midiData == null) {
+            throw new NullPointerException("midiData is 'null' - can't return its description");
         }
 
-        if (isChannelPressure()) {
-            return String.format(
-                    "Channel Aftertouch %03d Channel %02d",
-                    getChannelPressureValue(),
-                    getChannel()
-            );
-        }
+        switch (classify()) {
+            case NOTE_ON:
+                if (isNoteOn(false)) {
+                    appendNoteDescriptionTo(out.append("Note ON  "));
+                    return;
+                }
 
-        if (isAllNotesOff()) {
-            return String.format(
-                    "All notes off Channel %02d",
-                    getChannel()
-            );
-        }
+                if (isNoteOff(true)) {
+                    appendNoteDescriptionTo(out.append("Note OFF "));
+                    return;
+                }
+                break;
 
-        if (isAllSoundOff()) {
-            return String.format(
-                    "All sound off Channel %02d",
-                    getChannel()
-            );
-        }
+            case NOTE_OFF:
+                appendNoteDescriptionTo(out.append("Note OFF "));
+                return;
+
+            case PROGRAM_CHANGE:
+                appendNumber(out.append("Program change "), getProgramChangeNumber(), 3);
+                appendNumber(out.append(" Channel "), getChannel(), 2);
+                return;
+
+            case PITCH_WHEEL:
+                appendNumber(out.append("Pitchbend "), getPitchWheelValue(), 5);
+                appendNumber(out.append(" Channel "), getChannel(), 2);
+                return;
+
+            case POLY_AFTERTOUCH:
+                appendPadded(out.append("Poly Aftertouch "), getNoteName(getNoteNumber()), 4);
+                appendNumber(out.append(": "), getPolyAftertouchValue(), 3);
+                appendNumber(out.append(" Channel "), getChannel(), 2);
+                return;
+
+            case CHANNEL_PRESSURE:
+                appendNumber(out.append("Channel Aftertouch "), getChannelPressureValue(), 3);
+                appendNumber(out.append(" Channel "), getChannel(), 2);
+                return;
+
+            case CONTROLLER:
+                if (isAllNotesOff()) {
+                    appendNumber(out.append("All notes off Channel "), getChannel(), 2);
+                    return;
+                }
+
+                if (isAllSoundOff()) {
+                    appendNumber(out.append("All sound off Channel "), getChannel(), 2);
+                    return;
+                }
+
+                String name = getControllerName(getControllerNumber());
+
+                out.append("CC ");
+                if (name.isEmpty() || name.equals("--")) {
+                    appendNumber(out, getControllerNumber(), 1);
+                } else {
+                    out.append(name);
+                }
+
+                appendNumber(out.append(": "), getControllerValue(), 3);
+                appendNumber(out.append(" Channel "), getChannel(), 2);
+                return;
+
+            case DATA:
+                break;
 
-        if (isSysEx()) {
-            return String.format(
-                    "SysEx: %-4s",
-                    midiDataToHexString()
-            );
+            default:
+                // All system messages (0xF0 to 0xFF) are described by their raw data.
+                appendMidiDataHexStringTo(out.append("SysEx: "));
+                return;
         }
 
-        if (isMetaEvent()) {
-            return "Meta event";
-        }
+        appendMidiDataHexStringTo(out.append("Midi message description (HexString): "));
+    }
 
-        if (isController()) {
-            String name = getControllerName(getControllerNumber());
+    private void appendNoteDescriptionTo(Appendable out) throws IOException {
+        appendPadded(out, getNoteName(getNoteNumber()), 4);
+        appendNumber(out.append(" Velocity "), getVelocity(), 3);
+        appendNumber(out.append(" Channel "), getChannel(), 2);
+    }
 
-            if (name.isEmpty())
-                name = String.valueOf(getControllerNumber());
+    /***
+     * Returns raw midi data as a HexString.
+     *
+     * @return String i.e. "Status 0x9F(159), 0x3D(61), 0x7C(124)"
+     */
+    public String midiDataToHexString() {
+        return appendMidiDataHexString(new StringBuilder(8 + 12 * midiDataSize)).toString();
+    }
 
-            return String.format(
-                    "CC %s: %03d Channel %02d",
-                    name.equals("--") ? getControllerNumber() : name,
-                    getControllerValue(),
-                    getChannel()
-            );
+    /***
+     * Appends raw midi data as a HexString to a caller supplied StringBuilder,
+     * without any intermediate allocation (see {@link #midiDataToHexString()}).
+     *
+     * @param out   StringBuilder receiving the HexString
+     * @return      out
+     */
+    public StringBuilder appendMidiDataHexString(StringBuilder out) {
+        try {
+            appendMidiDataHexStringTo(out);
+        } catch (IOException e) {
+            throw new MidiException(e);
         }
 
-        return "Midi message description (HexString): " + midiDataToHexString();
+        return out;
     }
 
     /***
-     * Returns raw midi data as a HexString.
+     * Appends raw midi data as a HexString to a caller supplied CharBuffer,
+     * without any intermediate allocation (see {@link #midiDataToHexString()}).
      *
-     * @return String i.e. "Status 0x9F(159), 0x3D(61), 0x7C(124)"
+     * @param out   CharBuffer receiving the HexString
+     * @return      out
      */
-    public String midiDataToHexString() {
-        StringBuilder hexString = new StringBuilder("No Midi data to process!");
+    public CharBuffer appendMidiDataHexString(CharBuffer out) {
+        try {
+            appendMidiDataHexStringTo(out);
+        } catch (IOException e) {
+            throw new MidiException(e);
+        }
 
+        return out;
+    }
+
+    private void appendMidiDataHexStringTo(Appendable out) throws IOException {
         if (midiData == null || (midiData[0] & 0xFF) < 1 || midiDataSize < 1) {
-            return hexString.toString();
+            out.append("No Midi data to process!");
+            return;
         }
 
         for (int i = 0; i < midiDataSize; i++) {
 
             if (i == 0)
-                hexString = new StringBuilder((midiData[0] & 0xFF) == 0xF0 ? "Header " : "Status ");
+                out.append((midiData[0] & 0xFF) == 0xF0 ? "Header " : "Status ");
 
             else if (i == midiDataSize - 1 && isSysEx())
-                hexString.append((midiData[0] & 0xFF) == 0xF0 ? "Tail " : " ");
+                out.append((midiData[0] & 0xFF) == 0xF0 ? "Tail " : " ");
+
+            out.append(HEX_BYTES[midiData[i] & 0xFF]).append('(');
+            appendNumber(out, midiData[i] & 0xFF, 2);
+            out.append(')');
 
-            hexString.append(String.format(
-                    "0x%s(%02d)",
-                    Integer.toHexString(midiData[i] & 0xFF).toUpperCase(),
-                    midiData[i] & 0xFF
-            ));
-            hexString.append(i < midiDataSize - 1 ? ", " : "");
+            if (i < midiDataSize - 1)
+                out.append(", ");
         }
+    }
 
-        return hexString.toString();
+    /**
+     * Appends a string left aligned in a field of the given width (as "%-4s" would).
+     */
+    private static void appendPadded(Appendable out, String value, int width) throws IOException {
+        out.append(value);
+
+        for (int i = value.length(); i < width; i++) {
+            out.append(' ');
+        }
+    }
+
+    /**
+     * Appends a decimal number zero padded to the given width (as "%03d" would).
+     */
+    private static void appendNumber(Appendable out, int value, int width) throws IOException {
+        long number = value;
+
+        if (number < 0) {
+            out.append('-');
+            number = -number;
+            width--;
+        }
+
+        int digits = 1;
+        long divisor = 1;
+        while (number / divisor >= 10) {
+            divisor *= 10;
+            digits++;
+        }
+
+        for (int i = digits; i < width; i++) {
+            out.append('0');
+        }
+
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + (number / divisor) % 10));
+        }
     }
 
     /***
@@ -708,6 +1021,27 @@ public class MidiMessage implements Cloneable {
         timeStamp = newTimestamp;
     }
 
+    /**
+     * Returns the System.nanoTime() at which this message was received, stamped on entry of the MidiIn
+     * internal callback (or when polled by getMessage), 0 for a message not received from a device.<br>
+     * Unlike the timestamp (RtMidi delta time since the previous message of the same device), arrival times
+     * can be compared across devices and subtracted exactly, e.g. to measure latencies.
+     *
+     * @return long
+     */
+    public long getArrivalTime() {
+        return arrivalTime;
+    }
+
+    /**
+     * Stamp a received message with its arrival time.
+     *
+     * @param arrivalTime   System.nanoTime() at reception
+     */
+    void setArrivalTime(long arrivalTime) {
+        this.arrivalTime = arrivalTime;
+    }
+
     /***
      * Adds a value to the message's timestamp.
      *
@@ -718,7 +1052,7 @@ public class MidiMessage implements Cloneable {
     }
 
     /**
-     * Return a copy of this message with a new timestamp.
+     * Return a copy of this message, with its own copy of the midi data, and a new timestamp.
      *
      * @param newTimestamp the new timestamp in microseconds
      * @return MidiMessage
@@ -731,6 +1065,11 @@ public class MidiMessage implements Cloneable {
             throw new NullPointerException("Attempt to clone current midiMessage and change its timestamp failed.");
         }
 
+        // Never share the data of a mutable (or recyclable) message.
+        midiMessage.midiData = Arrays.copyOf(midiData, midiDataSize);
+        midiMessage.pool = null;
+        midiMessage.refCount = 0;
+
         midiMessage.timeStamp = newTimestamp;
 
         return midiMessage;
@@ -807,6 +1146,20 @@ public class MidiMessage implements Cloneable {
         return isSysEx() ? midiData : null;
     }
 
+    /**
+     * Returns a view on the sysex message (header and tail bytes included) without copying it,
+     * or null if this isn't a well formed sysex message.
+     *
+     * @return SysExView
+     */
+    public SysExView getSysExView() {
+        if (!isSysEx() || midiDataSize < 2 || midiData[midiDataSize - 1] != (byte) 0xF7) {
+            return null;
+        }
+
+        return SysExView.wrap(midiData, 0, midiDataSize);
+    }
+
     /**
      * Returns the size of the sysex data.
      *
@@ -1184,42 +1537,7 @@ public class MidiMessage implements Cloneable {
      * @return String
      */
     public String getControllerName(int controllerNumber) {
-        String[] ctrlNames = {
-                "Bank Select", "Modulation Wheel (coarse)", "Breath controller (coarse)",
-                "--",
-                "Foot Pedal (coarse)", "Portamento Time (coarse)", "Data Entry (coarse)",
-                "Volume (coarse)", "Balance (coarse)",
-                "--",
-                "Pan position (coarse)", "Expression (coarse)", "Effect Control 1 (coarse)",
-                "Effect Control 2 (coarse)",
-                "--", "--",
-                "General Purpose Slider 1", "General Purpose Slider 2",
-                "General Purpose Slider 3", "General Purpose Slider 4",
-                "--", "--", "--", "--", "--", "--", "--", "--", "--", "--", "--", "--",
-                "Bank Select (fine)", "Modulation Wheel (fine)", "Breath controller (fine)",
-                "--",
-                "Foot Pedal (fine)", "Portamento Time (fine)", "Data Entry (fine)", "Volume (fine)",
-                "Balance (fine)", "--", "Pan position (fine)", "Expression (fine)",
-                "Effect Control 1 (fine)", "Effect Control 2 (fine)",
-                "--", "--", "--", "--", "--", "--", "--", "--", "--",
-                "--", "--", "--", "--", "--", "--", "--", "--", "--",
-                "Hold Pedal (on/off)", "Portamento (on/off)", "Sustenuto Pedal (on/off)", "Soft Pedal (on/off)",
-                "Legato Pedal (on/off)", "Hold 2 Pedal (on/off)", "Sound Variation", "Sound Timbre",
-                "Sound Release Time", "Sound Attack Time", "Sound Brightness", "Sound Control 6",
-                "Sound Control 7", "Sound Control 8", "Sound Control 9", "Sound Control 10",
-                "General Purpose Button 1 (on/off)", "General Purpose Button 2 (on/off)",
-                "General Purpose Button 3 (on/off)", "General Purpose Button 4 (on/off)",
-                "--", "--", "--", "--", "--", "--", "--",
-                "Reverb Level", "Tremolo Level", "Chorus Level", "Celeste Level",
-                "Phaser Level", "Data Button increment", "Data Button decrement", "Non-registered Parameter (fine)",
-                "Non-registered Parameter (coarse)", "Registered Parameter (fine)", "Registered Parameter (coarse)",
-                "--", "--", "--", "--", "--", "--", "--", "--", "--",
-                "--", "--", "--", "--", "--", "--", "--", "--", "--",
-                "All Sound Off", "All Controllers Off", "Local Keyboard (on/off)", "All Notes Off",
-                "Omni Mode Off", "Omni Mode On", "Mono Operation", "Poly Operation"
-        };
-
-        return ctrlNames[controllerNumber];
+        return CONTROLLER_NAMES[controllerNumber];
     }
 
     /**
@@ -1325,5 +1643,85 @@ public class MidiMessage implements Cloneable {
 
         return (midiData[0] & 0xFF) == 0xFF;
     }
+
+    /**
+     * Midi message types, as given by their status byte (see {@link #classify()}).
+     */
+    public enum MessageType {
+        /** Not a status byte (0x00 to 0x7F), i.e. a data byte of a running status stream. */
+        DATA,
+        NOTE_OFF,
+        NOTE_ON,
+        POLY_AFTERTOUCH,
+        CONTROLLER,
+        PROGRAM_CHANGE,
+        CHANNEL_PRESSURE,
+        PITCH_WHEEL,
+        SYSEX,
+        MIDI_TIME_CODE,
+        SONG_POSITION,
+        SONG_SELECT,
+        TUNE_REQUEST,
+        END_OF_SYSEX,
+        TIMING_CLOCK,
+        START,
+        CONTINUE,
+        STOP,
+        ACTIVE_SENSING,
+        /** System reset (0xFF), also used as the meta event marker in midi files. */
+        RESET,
+        /** Undefined system status bytes (0xF4, 0xF5, 0xF9 and 0xFD). */
+        UNDEFINED;
+
+        /**
+         * Returns true for voice messages (status byte 0x80 to 0xEF).
+         *
+         * @return boolean
+         */
+        public boolean isChannelMessage() {
+            return ordinal() >= NOTE_OFF.ordinal() && ordinal() <= PITCH_WHEEL.ordinal();
+        }
+
+        /**
+         * Returns true for system real time messages (status byte 0xF8 to 0xFF).
+         *
+         * @return boolean
+         */
+        public boolean isRealTime() {
+            return ordinal() >= TIMING_CLOCK.ordinal() && ordinal() <= RESET.ordinal();
+        }
+
+        private static MessageType fromStatusByte(int status) {
+            if (status < 0x80) {
+                return DATA;
+            }
+
+            switch (status & 0xF0) {
+                case 0x80: return NOTE_OFF;
+                case 0x90: return NOTE_ON;
+                case 0xA0: return POLY_AFTERTOUCH;
+                case 0xB0: return CONTROLLER;
+                case 0xC0: return PROGRAM_CHANGE;
+                case 0xD0: return CHANNEL_PRESSURE;
+                case 0xE0: return PITCH_WHEEL;
+                default: break;
+            }
+
+            switch (status) {
+                case 0xF0: return SYSEX;
+                case 0xF1: return MIDI_TIME_CODE;
+                case 0xF2: return SONG_POSITION;
+                case 0xF3: return SONG_SELECT;
+                case 0xF6: return TUNE_REQUEST;
+                case 0xF7: return END_OF_SYSEX;
+                case 0xF8: return TIMING_CLOCK;
+                case 0xFA: return START;
+                case 0xFB: return CONTINUE;
+                case 0xFC: return STOP;
+                case 0xFE: return ACTIVE_SENSING;
+                case 0xFF: return RESET;
+                default: return UNDEFINED;
+            }
+        }
+    }
 }
-        
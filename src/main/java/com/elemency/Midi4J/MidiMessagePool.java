@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import com.sun.jna.Pointer;
+
+/**
+ * A pool of recyclable 1 to 3 byte MidiMessage instances used by a MidiIn source device
+ * (see {@link MidiIn#enableMessagePool(int)}).<br><br>
+ *
+ * Pooled messages are reference counted: the callback owns the message it acquires,
+ * the Broadcaster retains it once per listener and each reference is given back with
+ * {@link MidiMessage#release()}. When the last reference is released, the message returns to the pool.<br>
+ * Longer messages (i.e. SysEx) are never pooled and are simply left to the garbage collector.<br>
+ * The free lists are lock-free, as messages are acquired on the native callback thread and may be
+ * released on any listener thread.
+ */
+public class MidiMessagePool {
+
+    // One free list per short message size (index 1 to 3).
+    private final MpmcRingBuffer<MidiMessage>[] freeMessages;
+
+    /**
+     * @param poolSize  maximum number of idle messages kept per message size, rounded up to the next power of 2.
+     */
+    @SuppressWarnings("unchecked")
+    public MidiMessagePool(int poolSize) {
+        if (poolSize < 1) {
+            throw new MidiException("A MidiMessage pool size should be > 0");
+        }
+
+        freeMessages = (MpmcRingBuffer<MidiMessage>[]) new MpmcRingBuffer<?>[4];
+        for (int size = 1; size < freeMessages.length; size++) {
+            freeMessages[size] = new MpmcRingBuffer<>(poolSize);
+        }
+    }
+
+    /**
+     * Take a message from the pool (or create one if none is idle) and fill it with native data.
+     * The caller owns the returned message and must release it once done.
+     *
+     * @param midiData      midi message set in a jna pointer
+     * @param midiDataSize  midi message size
+     * @param timeStamp     time stamp
+     * @return              MidiMessage
+     */
+    public MidiMessage acquire(Pointer midiData, int midiDataSize, double timeStamp) {
+        if (midiData == null) {
+            throw new NullPointerException("A native Midi Message can't be null.");
+        }
+
+        if (midiDataSize < 1) {
+            throw new MidiException("A native Midi Message size should be > 0.");
+        }
+
+        if (midiDataSize >= freeMessages.length) {
+            byte[] data = new byte[midiDataSize];
+            midiData.read(0, data, 0, midiDataSize);
+            return new MidiMessage(data, midiDataSize, timeStamp);
+        }
+
+        MidiMessage midiMessage = freeMessages[midiDataSize].poll();
+
+        if (midiMessage == null) {
+            midiMessage = new MidiMessage(midiDataSize, this);
+        }
+
+        midiMessage.refill(midiData, midiDataSize, timeStamp);
+        return midiMessage;
+    }
+
+    /**
+     * Return the number of idle messages of a given size.
+     *
+     * @param midiDataSize  message size, 1 to 3
+     * @return              int
+     */
+    public int getIdleCount(int midiDataSize) {
+        return freeMessages[midiDataSize].size();
+    }
+
+    /**
+     * Give a fully released message back to the pool.
+     *
+     * @param midiMessage   MidiMessage
+     */
+    void recycle(MidiMessage midiMessage) {
+        // A full pool simply lets the message go to the garbage collector.
+        freeMessages[midiMessage.getMidiDataSize()].offer(midiMessage);
+    }
+}
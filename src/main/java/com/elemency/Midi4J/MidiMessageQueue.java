@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded FIFO of received midi messages, fed by a MidiIn internal callback and drained by
+ * blocking consumers (see {@link MidiIn#take()}), which sleep until a message arrives.<br>
+ * A full queue doubles its capacity up to its maximum capacity, then drops (and counts) the messages offered.
+ */
+class MidiMessageQueue implements MidiIn.MessageSink {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final ArrayDeque<MidiMessage> messages;
+    private final int maxCapacity;
+    private int capacity;
+    private int highWaterMark = 0;
+    private long droppedCount = 0;
+    private boolean closed = false;
+
+    MidiMessageQueue(int capacity) {
+        this(capacity, capacity);
+    }
+
+    MidiMessageQueue(int capacity, int maxCapacity) {
+        if (capacity < 1 || maxCapacity < capacity) {
+            throw new MidiException("A message queue capacity should be at least 1 and at most its maximum capacity.");
+        }
+
+        this.capacity = capacity;
+        this.maxCapacity = maxCapacity;
+        this.messages = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * Add a message, waking up a waiting consumer. The queue owns (and releases) the caller's
+     * reference until the message is taken.
+     *
+     * @param midiMessage   MidiMessage
+     * @return              false when the queue was full (or closed) and the message dropped.
+     */
+    @Override
+    public boolean offer(MidiMessage midiMessage) {
+        lock.lock();
+        try {
+            if (!closed && messages.size() >= capacity && capacity < maxCapacity) {
+                capacity = (int) Math.min((long) capacity << 1, maxCapacity);
+            }
+
+            if (!closed && messages.size() < capacity) {
+                messages.addLast(midiMessage);
+                highWaterMark = Math.max(highWaterMark, messages.size());
+                notEmpty.signal();
+                return true;
+            }
+
+            droppedCount++;
+        } finally {
+            lock.unlock();
+        }
+
+        midiMessage.release();
+        return false;
+    }
+
+    /**
+     * Remove the oldest message, waiting for one if needed.
+     *
+     * @return  MidiMessage, or null once the queue is closed.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    MidiMessage take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (messages.isEmpty() && !closed) {
+                notEmpty.await();
+            }
+
+            return messages.pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the oldest message, waiting up to the given time for one if needed.
+     *
+     * @param timeout   maximum time to wait
+     * @param unit      time unit of the timeout
+     * @return          MidiMessage, or null if none arrived in time (or the queue is closed).
+     * @throws InterruptedException if interrupted while waiting
+     */
+    MidiMessage poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+
+        lock.lockInterruptibly();
+        try {
+            while (messages.isEmpty() && !closed) {
+                if (nanos <= 0) {
+                    return null;
+                }
+
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+
+            return messages.pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop accepting messages, release the pending ones and wake up all waiting consumers.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+
+            MidiMessage midiMessage;
+            while ((midiMessage = messages.pollFirst()) != null) {
+                midiMessage.release();
+            }
+
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the number of pending messages.
+     *
+     * @return int
+     */
+    int size() {
+        lock.lock();
+        try {
+            return messages.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the current capacity.
+     *
+     * @return int
+     */
+    int getCapacity() {
+        lock.lock();
+        try {
+            return capacity;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the largest number of messages held at once.
+     *
+     * @return int
+     */
+    int getHighWaterMark() {
+        lock.lock();
+        try {
+            return highWaterMark;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the number of messages dropped for lack of room.
+     *
+     * @return long
+     */
+    @Override
+    public long getDroppedCount() {
+        lock.lock();
+        try {
+            return droppedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -15,20 +15,37 @@
 
 package com.elemency.Midi4J;
 
+import com.elemency.Midi4J.RtMidiDriver.RtMidiDirect;
 import com.elemency.Midi4J.RtMidiDriver.RtMidiSysApiMgr;
 import com.elemency.Midi4J.RtMidiDriver.RtMidiDevice;
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.util.List;
+
 public class MidiOut extends MidiDevice {
     protected final Logger logger = LoggerFactory.getLogger(MidiOut.class);
 
+    // Reusable native memory outgoing messages are written to, and sent from (see getStagingBuffer).
+    private static final int STAGING_BUFFER_SIZE = 1024;
+    private Memory stagingMemory = null;
+    private ByteBuffer stagingBuffer = null;
+
+    // Moved along a batch by sendMessages, so no Pointer is allocated per message.
+    private final BatchPointer batchPointer = new BatchPointer();
+
+    // Created on the first sendAt.
+    private volatile MidiOutScheduler scheduler = null;
+
     /**
      * MidiIn default constructor.
      */
     public MidiOut() {
         int api = RtMidiSysApiMgr.Api.UNSPECIFIED.getIntValue();
-        super.rtMidiDevice = create(api, super.sourceDeviceName);
+        setRtMidiDevice(create(api, super.sourceDeviceName));
     }
 
     public MidiOut(int api, String sourceDeviceName) {
@@ -40,7 +57,7 @@ public class MidiOut extends MidiDevice {
             sourceDeviceName = sourceDeviceName.replaceAll(":", " ");
             super.sourceDeviceName = sourceDeviceName;
         }
-        super.rtMidiDevice = create(api, sourceDeviceName);
+        setRtMidiDevice(create(api, sourceDeviceName));
     }
 
 
@@ -49,6 +66,7 @@ public class MidiOut extends MidiDevice {
      */
     @Override
     public void close() {
+        stopScheduler();
         closeSourceDevice();
         freeMemory();
     }
@@ -100,12 +118,13 @@ public class MidiOut extends MidiDevice {
      * @param length    length of the midi message to be sent
      * @return          int
      */
-    public int sendMessage(byte[] message, int length) {
+    public synchronized int sendMessage(byte[] message, int length) {
         if (rtMidiDevice == null) {
             throw new NullPointerException("This OUT device is null... can't send messages.");
         }
 
-        return lib.rtmidi_out_send_message(rtMidiDevice, message, length);
+        stage(length).put(message, 0, length);
+        return send(stagingMemory, length);
     }
 
     /**
@@ -114,12 +133,254 @@ public class MidiOut extends MidiDevice {
      * @param midiMessage   midi message to be sent
      * @return              int
      */
-    public int sendMessage(MidiMessage midiMessage) {
+    public synchronized int sendMessage(MidiMessage midiMessage) {
+
+        if (rtMidiDevice == null) {
+            throw new NullPointerException("This OUT device is null... can't send messages.");
+        }
+
+        int length = midiMessage.getMidiDataSize();
+        stage(length).put(midiMessage.rawMidiData(), 0, length);
+        return send(stagingMemory, length);
+    }
+
+    /**
+     * Return the native staging buffer of this device, cleared, for a message to be written straight
+     * into it then sent with {@link #sendStagingBuffer(int)}: no copy nor native allocation is then
+     * involved in sending.<br>
+     * The buffer is shared by all the send methods of this device: when used from several threads,
+     * fill and send it within a synchronized (midiOut) block. A buffer returned before the staging
+     * buffer had to grow is no longer the one sent.
+     *
+     * @param minCapacity   minimum capacity (bytes) required
+     * @return              ByteBuffer
+     */
+    public synchronized ByteBuffer getStagingBuffer(int minCapacity) {
+        return stage(minCapacity);
+    }
+
+    /**
+     * Send the message written at the start of the staging buffer (see {@link #getStagingBuffer(int)}).
+     *
+     * @param length    length of the midi message to be sent
+     * @return          int
+     */
+    public synchronized int sendStagingBuffer(int length) {
+
+        if (rtMidiDevice == null) {
+            throw new NullPointerException("This OUT device is null... can't send messages.");
+        }
+
+        if (stagingMemory == null || length < 1 || length > stagingMemory.size()) {
+            throw new MidiException("A staged message length should be in the range 1 to the staging buffer capacity.");
+        }
+
+        return send(stagingMemory, length);
+    }
+
+    /**
+     * Return the staging buffer, cleared, grown if needed to hold byteSize bytes.
+     */
+    private ByteBuffer stage(int byteSize) {
+        if (stagingMemory == null || stagingMemory.size() < byteSize) {
+            int capacity = STAGING_BUFFER_SIZE;
+            while (capacity < byteSize) {
+                capacity <<= 1;
+            }
+
+            stagingMemory = new Memory(capacity);
+            stagingBuffer = stagingMemory.getByteBuffer(0, capacity);
+        }
+
+        stagingBuffer.clear();
+        return stagingBuffer;
+    }
+
+    /**
+     * Send a midi message at a given time, from this device scheduler thread.<br>
+     * The scheduler sleeps until shortly before the message is due, then spins until it is, for a
+     * sub-millisecond jitter. Messages due at the same time are sent in the order they were scheduled,
+     * late messages being sent immediately.<br>
+     * The message must not be modified until sent (see {@link ImmutableMidiMessage}); a pooled message
+     * is retained until then.
+     *
+     * @param midiMessage   midi message to be sent
+     * @param nanoTime      System.nanoTime() at which to send the message
+     */
+    public void sendAt(MidiMessage midiMessage, long nanoTime) {
+
+        if (rtMidiDevice == null) {
+            throw new NullPointerException("This OUT device is null... can't send messages.");
+        }
+
+        getScheduler().schedule(midiMessage, nanoTime);
+    }
+
+    /**
+     * Discard all messages scheduled with sendAt and not sent yet.
+     *
+     * @return  number of messages discarded
+     */
+    public int cancelScheduledMessages() {
+        MidiOutScheduler current = scheduler;
+        return current != null ? current.cancelAll() : 0;
+    }
+
+    /**
+     * Return the number of messages scheduled with sendAt and not sent yet.
+     *
+     * @return int
+     */
+    public int getScheduledMessageCount() {
+        MidiOutScheduler current = scheduler;
+        return current != null ? current.getPendingCount() : 0;
+    }
+
+    private synchronized MidiOutScheduler getScheduler() {
+        if (scheduler == null) {
+            scheduler = new MidiOutScheduler(this::sendMessage, MidiOutScheduler.DEFAULT_SPIN_NANOS,
+                    "scheduler-" + sourceDeviceName);
+        }
+
+        return scheduler;
+    }
+
+    /**
+     * Stop the scheduler thread, if any, discarding the messages not sent yet.
+     */
+    private void stopScheduler() {
+        MidiOutScheduler current;
+
+        // Not stopped while holding the device lock, which the scheduler thread takes to send.
+        synchronized (this) {
+            current = scheduler;
+            scheduler = null;
+        }
+
+        if (current != null) {
+            current.stop();
+        }
+    }
+
+    /**
+     * Send a list of midi messages to the driver.<br>
+     * The messages are gathered in the native staging buffer, then sent one by one from there
+     * (RtMidi takes a single message per call), each send only passing a pointer.
+     *
+     * @param midiMessages  midi messages to be sent, in order
+     * @return              number of messages successfully sent
+     */
+    public synchronized int sendMessages(List<? extends MidiMessage> midiMessages) {
+
+        if (rtMidiDevice == null) {
+            throw new NullPointerException("This OUT device is null... can't send messages.");
+        }
+
+        int byteSize = 0;
+        for (MidiMessage midiMessage : midiMessages) {
+            byteSize += midiMessage.getMidiDataSize();
+        }
+
+        if (byteSize == 0) {
+            return 0;
+        }
+
+        ByteBuffer staging = stage(byteSize);
+        for (MidiMessage midiMessage : midiMessages) {
+            staging.put(midiMessage.rawMidiData(), 0, midiMessage.getMidiDataSize());
+        }
+
+        long address = Pointer.nativeValue(stagingMemory);
+
+        int sent = 0;
+        int offset = 0;
+        for (MidiMessage midiMessage : midiMessages) {
+            int size = midiMessage.getMidiDataSize();
+
+            if (send(batchPointer.moveTo(address + offset), size) >= 0) {
+                sent++;
+            }
+
+            offset += size;
+        }
+
+        return sent;
+    }
+
+    /**
+     * Send all events of a MidiBuffer to the driver, in order, ignoring their timestamps.<br>
+     * The events of a direct MidiBuffer are sent straight from its native memory, those of a heap one
+     * after a single copy to the native staging buffer; each send only passing a pointer.
+     *
+     * @param buffer    MidiBuffer holding the messages to be sent
+     * @return          number of messages successfully sent
+     */
+    public synchronized int sendMessages(MidiBuffer buffer) {
 
         if (rtMidiDevice == null) {
             throw new NullPointerException("This OUT device is null... can't send messages.");
         }
 
-        return lib.rtmidi_out_send_message(rtMidiDevice, midiMessage.getMidiData(), midiMessage.getMidiDataSize());
+        if (buffer.isEmpty()) {
+            return 0;
+        }
+
+        long address;
+
+        if (buffer.isDirect()) {
+            address = Pointer.nativeValue(buffer.getDataAddress());
+        } else {
+            ByteBuffer data = buffer.getData();
+            stage(buffer.getByteSize()).put(data.array(), data.arrayOffset(), buffer.getByteSize());
+            address = Pointer.nativeValue(stagingMemory);
+        }
+
+        int sent = 0;
+        MidiBuffer.Cursor cursor = buffer.cursor();
+
+        while (cursor.next()) {
+            if (send(batchPointer.moveTo(address + cursor.getDataOffset()), cursor.getSize()) >= 0) {
+                sent++;
+            }
+        }
+
+        return sent;
+    }
+
+    /**
+     * Send a message held in native memory, through the direct mapping when enabled at startup, through the
+     * interface mapping otherwise, both passing the raw device pointer so the RtMidiDevice structure isn't
+     * synced around each call.
+     */
+    private int send(Pointer message, int length) {
+        int result;
+
+        if (RtMidiDirect.isEnabled()) {
+            result = RtMidiDirect.rtmidi_out_send_message(devicePointer, message, length);
+        } else {
+            result = lib.rtmidi_out_send_message(devicePointer, message, length);
+        }
+
+        // The device status is only read back on failure.
+        if (result < 0) {
+            logger.error("Couldn't send midi message: " + getErrorMessage());
+        }
+
+        return result;
+    }
+
+    /**
+     * A reusable Pointer to each message of a batch in turn (only used under the MidiOut lock).
+     */
+    private static final class BatchPointer extends Pointer {
+
+        BatchPointer() {
+            super(0);
+        }
+
+        BatchPointer moveTo(long address) {
+            peer = address;
+            return this;
+        }
     }
 }
@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Output stage thinning out continuous controller streams before a MidiOut device: only the latest value
+ * per channel and controller, and per channel for pitch bend and channel pressure, is kept then sent at
+ * a fixed flush rate - superseded values are dropped instead of queueing up latency on slow (31.25 kbaud)
+ * hardware.<br><br>
+ *
+ * Any other message (notes, program changes, sysex...) first flushes the pending values then is sent
+ * straight away, so it never overtakes a controller change sent before it. Pending values leave in the
+ * order they were first changed.<br>
+ * The 14-bit controller pairs (MSB 0 to 31 and their LSB 32 to 63) are coalesced as one unit, the MSB being
+ * sent before the LSB: as an MSB resets the LSB on the receiver, it also supersedes a pending LSB.<br>
+ * Channel mode messages (controllers 120 to 127) and the data entry and (N)RPN controllers (6, 38 and
+ * 96 to 101), whose meaning depends on the messages around them, are never coalesced.<br>
+ * Closing a MidiOutCoalescer flushes the pending values and stops the flush thread, the MidiOut device
+ * being left open.
+ */
+public class MidiOutCoalescer implements AutoCloseable {
+    // Per channel slots: controllers 0 to 127, then pitch bend and channel pressure.
+    private static final int PITCH_BEND_SLOT = 128;
+    private static final int PRESSURE_SLOT = 129;
+    private static final int SLOTS_PER_CHANNEL = 130;
+    private static final int NO_VALUE = -1;
+
+    // A pending 14-bit pair is packed as PAIR | msbController << 24 | status << 16 | msb << 8 | lsb.
+    private static final int PAIR = 1 << 29;
+    private static final int NO_BYTE = 0xFF;
+
+    private final Logger logger = LoggerFactory.getLogger(MidiOutCoalescer.class);
+
+    private final ObjIntConsumer<byte[]> sender;
+    private final ScheduledExecutorService flusher;
+
+    // Pending messages packed as status << 16 | data1 << 8 | data2 (or as a pair), guarded by 'this'.
+    private final int[] pending = new int[16 * SLOTS_PER_CHANNEL];
+    private final int[] changedSlots = new int[pending.length];
+    private int changedCount = 0;
+    private long coalescedCount = 0;
+
+    // Output side, guarded by outputLock: producers of coalescable messages never wait on it.
+    private final Object outputLock = new Object();
+    private final int[] flushed = new int[pending.length];
+    private final byte[] scratch = new byte[3];
+    private boolean closed = false;
+
+    /**
+     * @param midiOut       MidiOut device the messages are sent to
+     * @param flushPeriod   time between two flushes of the pending values
+     * @param unit          flushPeriod unit
+     */
+    public MidiOutCoalescer(MidiOut midiOut, long flushPeriod, TimeUnit unit) {
+        this(midiOut::sendMessage, flushPeriod, unit, "coalescer-" + midiOut.getSourceDeviceName());
+    }
+
+    /**
+     * @param sender        called with each message (and its length) to send
+     * @param flushPeriod   time between two flushes of the pending values
+     * @param unit          flushPeriod unit
+     * @param threadName    flush thread name - this appears in the log
+     */
+    MidiOutCoalescer(ObjIntConsumer<byte[]> sender, long flushPeriod, TimeUnit unit, String threadName) {
+        if (flushPeriod <= 0) {
+            throw new MidiException("A flush period should be > 0.");
+        }
+
+        this.sender = sender;
+        Arrays.fill(pending, NO_VALUE);
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleAtFixedRate(this::scheduledFlush, flushPeriod, flushPeriod, unit);
+    }
+
+    /**
+     * Send a midi message: a controller, pitch bend or channel pressure message replaces the pending value
+     * of its slot until the next flush, any other message is sent after the pending values.
+     *
+     * @param midiMessage   midi message to be sent
+     */
+    public void sendMessage(MidiMessage midiMessage) {
+        if (midiMessage == null) {
+            throw new NullPointerException("midiMessage is 'null' - can't send it.");
+        }
+
+        sendMessage(midiMessage.rawMidiData(), midiMessage.getMidiDataSize());
+    }
+
+    /**
+     * Send a midi message set into a byte[] (see {@link #sendMessage(MidiMessage)}).
+     *
+     * @param message   midi message as byte[] to be sent
+     * @param length    length of the midi message to be sent
+     */
+    public void sendMessage(byte[] message, int length) {
+        if (message == null) {
+            throw new NullPointerException("message is 'null' - can't send it.");
+        }
+
+        if (length < 1 || length > message.length) {
+            throw new MidiException("A midi message length should be in the range 1 to its data length.");
+        }
+
+        int slot = slotOf(message, length);
+
+        if (slot != NO_VALUE) {
+            synchronized (this) {
+                if (!closed) {
+                    int current = pending[slot];
+
+                    if (current == NO_VALUE) {
+                        changedSlots[changedCount++] = slot;
+                    }
+
+                    pending[slot] = coalesce(current, message, length);
+                    return;
+                }
+            }
+        }
+
+        synchronized (outputLock) {
+            flushPending();
+            sender.accept(message, length);
+        }
+    }
+
+    /**
+     * Send the pending values now.
+     */
+    public void flush() {
+        synchronized (outputLock) {
+            flushPending();
+        }
+    }
+
+    /**
+     * Return the number of values waiting for the next flush, a 14-bit controller pair counting as one.
+     *
+     * @return int
+     */
+    public synchronized int getPendingCount() {
+        return changedCount;
+    }
+
+    /**
+     * Return the number of values dropped, superseded by a later value before being flushed.
+     *
+     * @return long
+     */
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Flush the pending values and stop the flush thread.
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+
+        try {
+            flusher.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            closed = true;
+        }
+
+        flush();
+    }
+
+    private void scheduledFlush() {
+        // An exception would cancel all the following flushes.
+        try {
+            flush();
+        } catch (RuntimeException re) {
+            logger.error("Coalesced midi messages couldn't be flushed.", re);
+        }
+    }
+
+    /**
+     * Take the pending values and send them - outputLock must be held.
+     */
+    private void flushPending() {
+        int count;
+
+        synchronized (this) {
+            count = changedCount;
+
+            for (int i = 0; i < count; i++) {
+                int slot = changedSlots[i];
+                flushed[i] = pending[slot];
+                pending[slot] = NO_VALUE;
+            }
+
+            changedCount = 0;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int packed = flushed[i];
+            int status = (packed >> 16) & 0xFF;
+
+            if ((packed & PAIR) == 0) {
+                send(status, (packed >> 8) & 0xFF, packed & 0xFF, (status & 0xF0) == 0xD0 ? 2 : 3);
+                continue;
+            }
+
+            int controller = (packed >> 24) & 0x1F;
+            int msb = (packed >> 8) & 0xFF;
+            int lsb = packed & 0xFF;
+
+            if (msb != NO_BYTE) {
+                send(status, controller, msb, 3);
+            }
+
+            if (lsb != NO_BYTE) {
+                send(status, controller + 32, lsb, 3);
+            }
+        }
+    }
+
+    private void send(int status, int data1, int data2, int length) {
+        scratch[0] = (byte) status;
+        scratch[1] = (byte) data1;
+        scratch[2] = (byte) data2;
+
+        sender.accept(scratch, length);
+    }
+
+    /**
+     * Merge a message into the pending value of its slot, counting the values it supersedes - 'this' must be held.
+     *
+     * @param current   pending value of the slot, or NO_VALUE
+     * @param message   midi message as byte[]
+     * @param length    length of the midi message
+     * @return          the new pending value
+     */
+    private int coalesce(int current, byte[] message, int length) {
+        int status = message[0] & 0xFF;
+        int data1 = message[1] & 0x7F;
+        int data2 = length > 2 ? message[2] & 0x7F : 0;
+
+        if ((status & 0xF0) != 0xB0 || data1 >= 64) {
+            if (current != NO_VALUE) {
+                coalescedCount++;
+            }
+
+            return status << 16 | data1 << 8 | data2;
+        }
+
+        int msb = current == NO_VALUE ? NO_BYTE : (current >> 8) & 0xFF;
+        int lsb = current == NO_VALUE ? NO_BYTE : current & 0xFF;
+
+        if (data1 < 32) {
+            coalescedCount += (msb != NO_BYTE ? 1 : 0) + (lsb != NO_BYTE ? 1 : 0);
+            msb = data2;
+            lsb = NO_BYTE;
+        } else {
+            coalescedCount += lsb != NO_BYTE ? 1 : 0;
+            lsb = data2;
+        }
+
+        return PAIR | (data1 & 0x1F) << 24 | status << 16 | msb << 8 | lsb;
+    }
+
+    /**
+     * Return the coalescing slot of a message, or NO_VALUE if it should be sent as is.
+     *
+     * @param message   midi message as byte[]
+     * @param length    length of the midi message
+     * @return          int
+     */
+    private static int slotOf(byte[] message, int length) {
+        int status = message[0] & 0xFF;
+        int channelSlots = (status & 0x0F) * SLOTS_PER_CHANNEL;
+
+        switch (status & 0xF0) {
+            case 0xB0:
+                if (length < 3) {
+                    return NO_VALUE;
+                }
+
+                int controller = message[1] & 0x7F;
+                if (controller >= 120 || controller == 6 || controller == 38 || (controller >= 96 && controller <= 101)) {
+                    return NO_VALUE;
+                }
+
+                // An LSB shares the slot of its MSB.
+                return channelSlots + (controller >= 32 && controller < 64 ? controller - 32 : controller);
+
+            case 0xE0:
+                return length < 3 ? NO_VALUE : channelSlots + PITCH_BEND_SLOT;
+
+            case 0xD0:
+                return length < 2 ? NO_VALUE : channelSlots + PRESSURE_SLOT;
+
+            default:
+                return NO_VALUE;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Sends midi messages at a given System.nanoTime() from a dedicated thread (see {@link MidiOut#sendAt(MidiMessage, long)}).<br><br>
+ *
+ * The thread sleeps until shortly before the earliest message is due, then spins for the remaining
+ * spin threshold, as sleeps alone overshoot by up to a millisecond or more. Messages due at the same
+ * time leave in the order they were scheduled; late messages leave immediately.<br>
+ * A message scheduled during the spin with an earlier time goes first, the spinning one being put back.
+ */
+class MidiOutScheduler {
+    /** Default time before a message is due during which the scheduler spins instead of sleeping. */
+    static final long DEFAULT_SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(300);
+
+    private final Logger logger = LoggerFactory.getLogger(MidiOutScheduler.class);
+
+    private final Consumer<MidiMessage> sender;
+    private final long spinNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Entry> entries = new PriorityQueue<>();
+    private final Thread thread;
+    private long sequence = 0;
+    private boolean running = true;
+
+    // Entry taken by the scheduler thread and spun on, outside the lock.
+    private Entry inFlight = null;
+
+    /**
+     * @param sender        called, on the scheduler thread, with each message once due
+     * @param spinNanos     time before a message is due during which the scheduler spins
+     * @param threadName    scheduler thread name - this appears in the log
+     */
+    MidiOutScheduler(Consumer<MidiMessage> sender, long spinNanos, String threadName) {
+        this.sender = sender;
+        this.spinNanos = spinNanos;
+
+        thread = new Thread(this::run, threadName);
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Schedule a message. A pooled message is retained until sent (or cancelled).
+     *
+     * @param midiMessage   MidiMessage, not to be modified until sent
+     * @param nanoTime      System.nanoTime() at which to send it
+     */
+    void schedule(MidiMessage midiMessage, long nanoTime) {
+        if (midiMessage == null) {
+            throw new NullPointerException("midiMessage is 'null' - can't schedule it.");
+        }
+
+        lock.lock();
+        try {
+            if (!running) {
+                throw new MidiException("This scheduler is stopped.");
+            }
+
+            midiMessage.retain();
+            Entry entry = new Entry(midiMessage, nanoTime, sequence++);
+            entries.add(entry);
+
+            // Only wake the thread up when its next deadline changes.
+            if (entries.peek() == entry) {
+                changed.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discard all pending messages.
+     *
+     * @return number of messages discarded
+     */
+    int cancelAll() {
+        lock.lock();
+        try {
+            int count = entries.size();
+
+            // The scheduler thread releases it once done spinning.
+            if (inFlight != null && !inFlight.cancelled) {
+                inFlight.cancelled = true;
+                count++;
+            }
+
+            Entry entry;
+            while ((entry = entries.poll()) != null) {
+                entry.midiMessage.release();
+            }
+
+            changed.signal();
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the number of pending messages.
+     *
+     * @return int
+     */
+    int getPendingCount() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop the scheduler thread, discarding the pending messages.
+     */
+    void stop() {
+        lock.lock();
+        try {
+            running = false;
+        } finally {
+            lock.unlock();
+        }
+
+        cancelAll();
+
+        try {
+            thread.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            Entry entry = nextEntry();
+
+            if (entry == null) {
+                return;
+            }
+
+            // Spin out the last few hundred microseconds.
+            while (System.nanoTime() - entry.nanoTime < 0) {
+            }
+
+            if (!takeInFlight(entry)) {
+                continue;
+            }
+
+            try {
+                sender.accept(entry.midiMessage);
+            } catch (RuntimeException re) {
+                logger.error("Scheduled midi message couldn't be sent.", re);
+            } finally {
+                entry.midiMessage.release();
+            }
+        }
+    }
+
+    /**
+     * Sleep until the earliest message is within the spin threshold of its time, and remove it.
+     *
+     * @return Entry, or null once stopped.
+     */
+    private Entry nextEntry() {
+        lock.lock();
+        try {
+            while (running) {
+                Entry entry = entries.peek();
+
+                if (entry == null) {
+                    changed.awaitUninterruptibly();
+                    continue;
+                }
+
+                long sleep = entry.nanoTime - System.nanoTime() - spinNanos;
+
+                if (sleep <= 0) {
+                    inFlight = entries.poll();
+                    return inFlight;
+                }
+
+                changed.awaitNanos(sleep);
+            }
+
+            return null;
+
+        } catch (InterruptedException ie) {
+            // Nothing would ever be sent anymore.
+            running = false;
+            cancelAll();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Check the spun on entry is still the one to send now.
+     *
+     * @param entry the in flight entry
+     * @return      false if it was cancelled, or put back behind an earlier entry scheduled meanwhile.
+     */
+    private boolean takeInFlight(Entry entry) {
+        lock.lock();
+        try {
+            inFlight = null;
+
+            if (entry.cancelled) {
+                entry.midiMessage.release();
+                return false;
+            }
+
+            Entry head = entries.peek();
+
+            if (head != null && head.compareTo(entry) < 0) {
+                entries.add(entry);
+                return false;
+            }
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final MidiMessage midiMessage;
+        private final long nanoTime;
+        private final long sequence;
+        private boolean cancelled = false;
+
+        Entry(MidiMessage midiMessage, long nanoTime, long sequence) {
+            this.midiMessage = midiMessage;
+            this.nanoTime = nanoTime;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            long diff = nanoTime - other.nanoTime;
+
+            if (diff != 0) {
+                return diff < 0 ? -1 : 1;
+            }
+
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
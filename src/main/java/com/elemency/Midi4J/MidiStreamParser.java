@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Push parser turning a raw midi 1.0 byte stream (raw transports, file imports, recorded captures...),
+ * received in chunks of any size, into midi events.<br><br>
+ *
+ * - Running status is supported, system common messages cancelling it.<br>
+ * - Real-time bytes (0xF8 - 0xFF) are emitted as soon as received, even in the middle of another message.<br>
+ * - SysEx messages may span any number of chunks (see {@link SysExAssembler}).<br>
+ * - Data bytes received without any status to apply to are discarded.<br><br>
+ *
+ * Short messages are emitted as packed ints (see {@link PackedMidiMessage}), so parsing doesn't
+ * allocate per event. Each event gets the time stamp of the chunk holding its last byte, SysEx
+ * messages the one of the chunk holding their 0xF0 header. A parser isn't thread safe.
+ */
+public class MidiStreamParser {
+
+    private static final int DEFAULT_SYSEX_CAPACITY = 1024;
+    private static final int DEFAULT_SYSEX_MAX_SIZE = 1024 * 1024;
+
+    private final MidiStreamListener listener;
+    private final SysExAssembler sysExAssembler;
+
+    private int runningStatus = 0;
+    private int pending = 0;
+    private int expectedSize = 0;
+    private int size = 0;
+    private boolean inSysEx = false;
+    private long discardedByteCount = 0;
+
+    /**
+     * Creates a parser emitting its events to a listener, SysEx messages being limited to 1 MB.
+     *
+     * @param listener  MidiStreamListener
+     */
+    public MidiStreamParser(MidiStreamListener listener) {
+        this(listener, DEFAULT_SYSEX_CAPACITY, DEFAULT_SYSEX_MAX_SIZE);
+    }
+
+    /**
+     * Creates a parser emitting its events to a listener.
+     *
+     * @param listener          MidiStreamListener
+     * @param sysExCapacity     initial SysEx buffer capacity in bytes
+     * @param sysExMaxSize      maximum SysEx message size in bytes
+     */
+    public MidiStreamParser(MidiStreamListener listener, int sysExCapacity, int sysExMaxSize) {
+        if (listener == null) {
+            throw new NullPointerException("listener is 'null' - can't create a midi stream parser.");
+        }
+
+        this.listener = listener;
+        this.sysExAssembler = new SysExAssembler(sysExCapacity, sysExMaxSize, listener::receiveSysEx);
+    }
+
+    /**
+     * Creates a parser appending its events to a MidiBuffer, SysEx messages being limited to 1 MB.
+     *
+     * @param target    MidiBuffer receiving the events
+     */
+    public MidiStreamParser(MidiBuffer target) {
+        this(new MidiStreamListener() {
+            @Override
+            public void receiveShortMessage(int packed, double timeStamp) {
+                target.appendPacked(packed, timeStamp);
+            }
+
+            @Override
+            public void receiveSysEx(SysExView sysEx, double timeStamp) {
+                target.append(sysEx, timeStamp);
+            }
+        });
+    }
+
+    /**
+     * Parse the remaining bytes of a chunk held in a ByteBuffer (heap or direct), consuming them.
+     *
+     * @param chunk     ByteBuffer holding the chunk
+     * @param timeStamp chunk time stamp
+     */
+    public void parse(ByteBuffer chunk, double timeStamp) {
+        while (chunk.hasRemaining()) {
+            parse(chunk.get(), timeStamp);
+        }
+    }
+
+    /**
+     * Parse a chunk held in a byte[].
+     *
+     * @param chunk     byte[] holding the chunk
+     * @param offset    index of the first byte of the chunk
+     * @param length    chunk length
+     * @param timeStamp chunk time stamp
+     */
+    public void parse(byte[] chunk, int offset, int length, double timeStamp) {
+        if (chunk == null) {
+            throw new NullPointerException("chunk is 'null' - can't parse it.");
+        }
+
+        for (int i = offset; i < offset + length; i++) {
+            parse(chunk[i], timeStamp);
+        }
+    }
+
+    /**
+     * Parse a single byte.
+     *
+     * @param b         midi byte
+     * @param timeStamp time stamp of the chunk holding this byte
+     */
+    public void parse(byte b, double timeStamp) {
+        int value = b & 0xFF;
+
+        // Real-time: emitted right away, without disturbing any message in progress.
+        if (value >= 0xF8) {
+            listener.receiveShortMessage(PackedMidiMessage.pack(value), timeStamp);
+            return;
+        }
+
+        if (inSysEx) {
+            sysExAssembler.feed(b, timeStamp);
+
+            if (value < 0x80) {
+                return;
+            }
+
+            // Tail byte or any other status ending the SysEx (the assembler aborting it).
+            inSysEx = value == 0xF0;
+            if (value == 0xF0 || value == 0xF7) {
+                return;
+            }
+
+        } else if (value == 0xF0) {
+            clearRunningStatus();
+            inSysEx = true;
+            sysExAssembler.feed(b, timeStamp);
+            return;
+        }
+
+        if (value >= 0x80) {
+            parseStatus(value, timeStamp);
+            return;
+        }
+
+        if (expectedSize == 0) {
+            if (runningStatus == 0) {
+                discardedByteCount++;
+                return;
+            }
+
+            startMessage(runningStatus);
+        }
+
+        pending |= value << (size * 8);
+        size++;
+
+        if (size == expectedSize) {
+            emit(timeStamp);
+        }
+    }
+
+    /**
+     * Forget any running status and partially received message.
+     */
+    public void reset() {
+        clearRunningStatus();
+        inSysEx = false;
+        sysExAssembler.reset();
+    }
+
+    /**
+     * Returns the number of data bytes discarded for lack of a status byte.
+     *
+     * @return long
+     */
+    public long getDiscardedByteCount() {
+        return discardedByteCount;
+    }
+
+    /**
+     * Returns the number of SysEx messages aborted or dropped for being too large.
+     *
+     * @return long
+     */
+    public long getDroppedSysExCount() {
+        return sysExAssembler.getDroppedCount();
+    }
+
+    private void parseStatus(int status, double timeStamp) {
+        // Stray tail byte or undefined status.
+        int length = MidiMessage.getMessageLength(status);
+        if (length < 1) {
+            clearRunningStatus();
+            return;
+        }
+
+        // Only channel messages set running status, system common ones cancel it.
+        if (status < 0xF0) {
+            runningStatus = status;
+        } else {
+            runningStatus = 0;
+        }
+
+        startMessage(status);
+
+        if (length == 1) {
+            emit(timeStamp);
+        }
+    }
+
+    private void startMessage(int status) {
+        pending = status;
+        size = 1;
+        expectedSize = MidiMessage.getMessageLength(status);
+    }
+
+    private void emit(double timeStamp) {
+        int packed = PackedMidiMessage.packBytes(pending, size);
+
+        pending = 0;
+        size = 0;
+        expectedSize = 0;
+
+        listener.receiveShortMessage(packed, timeStamp);
+    }
+
+    private void clearRunningStatus() {
+        runningStatus = 0;
+        pending = 0;
+        size = 0;
+        expectedSize = 0;
+    }
+
+    /**
+     * Implement this interface to receive the events parsed by a MidiStreamParser.<br>
+     * The SysExView passed to receiveSysEx is only valid until it returns.
+     */
+    public interface MidiStreamListener {
+        void receiveShortMessage(int packed, double timeStamp);
+
+        void receiveSysEx(SysExView sysEx, double timeStamp);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free, multi-producer/multi-consumer ring buffer, preallocated at creation
+ * (D. Vyukov's bounded MPMC queue).<br><br>
+ *
+ * Each slot carries a sequence number telling whether it is free for the producer at a given position or
+ * filled for the consumer at that position: producers and consumers only compete, through a CAS, on their
+ * own index, and never wait on each other.
+ *
+ * @param <E>   element type
+ */
+public class MpmcRingBuffer<E> {
+
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity  maximum number of elements, rounded up to the next power of 2 (2 at least).
+     */
+    public MpmcRingBuffer(int capacity) {
+        int size = Math.max(2, SpscRingBuffer.roundCapacity(capacity));
+
+        buffer = new Object[size];
+        sequences = new AtomicLongArray(size);
+        mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add an element (any thread).
+     *
+     * @param element   element to add
+     * @return          false when the ring is full, the element not being added.
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("A ring buffer can't hold 'null' elements.");
+        }
+
+        long position = tail.get();
+
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer[index] = element;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+
+            position = tail.get();
+        }
+    }
+
+    /**
+     * Remove the oldest element (any thread).
+     *
+     * @return  the oldest element, or null when the ring is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = head.get();
+
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E element = (E) buffer[index];
+                    buffer[index] = null;
+                    sequences.lazySet(index, position + buffer.length);
+                    return element;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+
+            position = head.get();
+        }
+    }
+
+    /**
+     * Return the number of elements in the ring (an estimate while producers and consumers are running).
+     *
+     * @return int
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(buffer.length, tail.get() - head.get()));
+    }
+
+    /**
+     * Return true when the ring holds no element (an estimate while producers and consumers are running).
+     *
+     * @return boolean
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Return the maximum number of elements.
+     *
+     * @return int
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+}
@@ -0,0 +1,586 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import com.sun.jna.Pointer;
+
+/**
+ * Static helpers to handle 1 to 3 byte (short) midi messages packed into a single int,
+ * so high rate note and controller events can be stored and passed around without any object allocation.<br><br>
+ *
+ * Layout of a packed message:<br>
+ * &nbsp; &nbsp; bits 0-7   &nbsp; Status byte (Status + Channel)<br>
+ * &nbsp; &nbsp; bits 8-15  &nbsp; data1 byte<br>
+ * &nbsp; &nbsp; bits 16-23 &nbsp; data2 byte<br>
+ * &nbsp; &nbsp; bits 24-25 &nbsp; message size (1 to 3)<br><br>
+ *
+ * SysEx messages can't be packed and should be handled with {@link MidiMessage}.
+ */
+public final class PackedMidiMessage {
+
+    private static final int SIZE_SHIFT = 24;
+
+    private PackedMidiMessage() {
+    }
+
+    /**
+     * Packs a 3-byte short midi message.
+     *
+     * @param byte0 Status byte (Status + Channel)
+     * @param byte1 data1 byte
+     * @param byte2 data2 byte
+     * @return      packed midi message
+     */
+    public static int pack(int byte0, int byte1, int byte2) {
+        return (byte0 & 0xFF) | (byte1 & 0xFF) << 8 | (byte2 & 0xFF) << 16 | 3 << SIZE_SHIFT;
+    }
+
+    /**
+     * Packs a 2-byte short midi message.
+     *
+     * @param byte0 Status byte (Status + Channel)
+     * @param byte1 data1 byte
+     * @return      packed midi message
+     */
+    public static int pack(int byte0, int byte1) {
+        return (byte0 & 0xFF) | (byte1 & 0xFF) << 8 | 2 << SIZE_SHIFT;
+    }
+
+    /**
+     * Packs a 1-byte short midi message.
+     *
+     * @param byte0 Status byte
+     * @return      packed midi message
+     */
+    public static int pack(int byte0) {
+        return (byte0 & 0xFF) | 1 << SIZE_SHIFT;
+    }
+
+    /**
+     * Packs a short midi message whose bytes are already laid out in bits 0-23, status byte first.
+     *
+     * @param bytes midi message bytes, byte i in bits i * 8 to i * 8 + 7
+     * @param size  midi message size, 1 to 3
+     * @return      packed midi message
+     */
+    static int packBytes(int bytes, int size) {
+        return bytes | size << SIZE_SHIFT;
+    }
+
+    /**
+     * Packs a short midi message from a block of data.
+     *
+     * @param midiData  midi message set in a byte[]
+     * @param offset    index of the status byte in midiData
+     * @param size      midi message size, 1 to 3
+     * @return          packed midi message
+     */
+    public static int pack(byte[] midiData, int offset, int size) {
+        if (midiData == null) {
+            throw new NullPointerException("midiData is 'null' - can't pack it.");
+        }
+
+        switch (size) {
+            case 1:
+                return pack(midiData[offset]);
+            case 2:
+                return pack(midiData[offset], midiData[offset + 1]);
+            case 3:
+                return pack(midiData[offset], midiData[offset + 1], midiData[offset + 2]);
+            default:
+                throw new MidiException("Only 1 to 3 bytes midi messages can be packed, size given: " + size);
+        }
+    }
+
+    /**
+     * Packs a short midi message straight from a native jna block of data.
+     *
+     * @param midiData  midi message set in a jna pointer
+     * @param size      midi message size, 1 to 3
+     * @return          packed midi message
+     */
+    public static int pack(Pointer midiData, int size) {
+        if (midiData == null) {
+            throw new NullPointerException("A native Midi Message can't be null.");
+        }
+
+        switch (size) {
+            case 1:
+                return pack(midiData.getByte(0));
+            case 2:
+                return pack(midiData.getByte(0), midiData.getByte(1));
+            case 3:
+                return pack(midiData.getByte(0), midiData.getByte(1), midiData.getByte(2));
+            default:
+                throw new MidiException("Only 1 to 3 bytes midi messages can be packed, size given: " + size);
+        }
+    }
+
+    /**
+     * Returns true if the given message size and status byte can be packed.
+     *
+     * @param byte0 Status byte
+     * @param size  midi message size
+     * @return      boolean
+     */
+    public static boolean canPack(int byte0, int size) {
+        return size > 0 && size < 4 && MidiMessage.getMessageLength(byte0) != -1;
+    }
+
+    /**
+     * Packs a MidiMessage instance.
+     *
+     * @param midiMessage   midi message to be packed, must be 1 to 3 bytes long.
+     * @return              packed midi message
+     */
+    public static int fromMidiMessage(MidiMessage midiMessage) {
+        return pack(midiMessage.rawMidiData(), 0, midiMessage.getMidiDataSize());
+    }
+
+    /**
+     * Creates a MidiMessage instance from a packed midi message.
+     *
+     * @param packed    packed midi message
+     * @param timeStamp time stamp
+     * @return          MidiMessage
+     */
+    public static MidiMessage toMidiMessage(int packed, double timeStamp) {
+        int size = getSize(packed);
+        byte[] midiData = new byte[size];
+        writeTo(packed, midiData, 0);
+
+        return new MidiMessage(midiData, size, timeStamp);
+    }
+
+    /**
+     * Writes the bytes of a packed midi message into a byte[].
+     *
+     * @param packed    packed midi message
+     * @param dest      byte[] receiving the midi message
+     * @param offset    index at which the status byte is written
+     * @return          number of bytes written
+     */
+    public static int writeTo(int packed, byte[] dest, int offset) {
+        int size = getSize(packed);
+
+        for (int i = 0; i < size; i++) {
+            dest[offset + i] = (byte) (packed >>> (i * 8));
+        }
+
+        return size;
+    }
+
+    /**
+     * Returns the size of a packed midi message.
+     *
+     * @param packed    packed midi message
+     * @return          int, 1 to 3
+     */
+    public static int getSize(int packed) {
+        return (packed >>> SIZE_SHIFT) & 0x3;
+    }
+
+    /**
+     * Returns the status byte of a packed midi message.
+     *
+     * @param packed    packed midi message
+     * @return          int
+     */
+    public static int getStatusByte(int packed) {
+        return packed & 0xFF;
+    }
+
+    /**
+     * Returns the data1 byte of a packed midi message.
+     *
+     * @param packed    packed midi message
+     * @return          int
+     */
+    public static int getData1(int packed) {
+        return (packed >>> 8) & 0xFF;
+    }
+
+    /**
+     * Returns the data2 byte of a packed midi message.
+     *
+     * @param packed    packed midi message
+     * @return          int
+     */
+    public static int getData2(int packed) {
+        return (packed >>> 16) & 0xFF;
+    }
+
+    /**
+     * Creates a key-down packed message.
+     *
+     * @param channel       the midi channel, in the range 1 to 16
+     * @param noteNumber    the key number, 0 to 127
+     * @param velocity      in the range 0 to 127
+     * @return              packed midi message
+     */
+    public static int noteOn(int channel, int noteNumber, int velocity) {
+        return pack(MidiMessage.createStatusByte(0x90, channel), noteNumber & 0x7F, velocity & 0x7F);
+    }
+
+    /**
+     * Creates a key-up packed message.
+     *
+     * @param channel       the midi channel, in the range 1 to 16
+     * @param noteNumber    the key number, 0 to 127
+     * @param velocity      in the range 0 to 127
+     * @return              packed midi message
+     */
+    public static int noteOff(int channel, int noteNumber, int velocity) {
+        return pack(MidiMessage.createStatusByte(0x80, channel), noteNumber & 0x7F, velocity & 0x7F);
+    }
+
+    /**
+     * Creates a program-change packed message.
+     *
+     * @param channel       the midi channel, in the range 1 to 16
+     * @param programNumber the midi program number, 0 to 127
+     * @return              packed midi message
+     */
+    public static int programChange(int channel, int programNumber) {
+        return pack(MidiMessage.createStatusByte(0xC0, channel), programNumber & 0x7F);
+    }
+
+    /**
+     * Creates a pitch-wheel move packed message.
+     *
+     * @param channel       the midi channel, in the range 1 to 16
+     * @param position      the wheel position, in the range 0 to 16383
+     * @return              packed midi message
+     */
+    public static int pitchWheel(int channel, int position) {
+        return pack(MidiMessage.createStatusByte(0xE0, channel), position & 0x7F, (position >> 7) & 0x7F);
+    }
+
+    /**
+     * Creates a channel-pressure change packed message.
+     *
+     * @param channel       the midi channel: 1 to 16
+     * @param pressure      the pressure, 0 to 127
+     * @return              packed midi message
+     */
+    public static int channelPressureChange(int channel, int pressure) {
+        return pack(MidiMessage.createStatusByte(0xD0, channel), pressure & 0x7F);
+    }
+
+    /**
+     * Creates an aftertouch packed message.
+     *
+     * @param channel           the midi channel, in the range 1 to 16
+     * @param noteNumber        the key number, 0 to 127
+     * @param aftertouchAmount  the amount of aftertouch, 0 to 127
+     * @return                  packed midi message
+     */
+    public static int aftertouchChange(int channel, int noteNumber, int aftertouchAmount) {
+        return pack(MidiMessage.createStatusByte(0xA0, channel), noteNumber & 0x7F, aftertouchAmount & 0x7F);
+    }
+
+    /**
+     * Creates a controller packed message.
+     *
+     * @param channel           the midi channel, in the range 1 to 16
+     * @param controllerType    the type of controller
+     * @param value             the controller value
+     * @return                  packed midi message
+     */
+    public static int controllerEvent(int channel, int controllerType, int value) {
+        return pack(MidiMessage.createStatusByte(0xB0, channel), controllerType & 0x7F, value & 0x7F);
+    }
+
+    /**
+     * Returns the type of a packed message, in a single table lookup.
+     *
+     * @param packed    packed midi message
+     * @return          MessageType
+     */
+    public static MidiMessage.MessageType classify(int packed) {
+        return MidiMessage.classify(packed);
+    }
+
+    /**
+     * Returns the midi channel of a packed message, 0 for system messages.
+     *
+     * @param packed    packed midi message
+     * @return          int, 1 to 16
+     */
+    public static int getChannel(int packed) {
+        if ((packed & 0xF0) == 0xF0) {
+            return 0;
+        }
+
+        return (packed & 0xF) + 1;
+    }
+
+    /**
+     * Returns a copy of a packed message with a new midi channel.
+     *
+     * @param packed    packed midi message
+     * @param number    the midi channel, in the range 1 to 16
+     * @return          packed midi message
+     */
+    public static int withChannel(int packed, int number) {
+        if (number < 1 || number > 16) {
+            throw new MidiException("A Midi voice channel can only be between 1 and 16");
+        }
+
+        return (packed & ~0xF) | ((number - 1) & 0xF);
+    }
+
+    /**
+     * Returns true if a packed message applies to the given midi channel.
+     *
+     * @param packed    packed midi message
+     * @param number    the midi channel, in the range 1 to 16
+     * @return          boolean
+     */
+    public static boolean isForChannel(int packed, int number) {
+        return (packed & 0xF) + 1 == number;
+    }
+
+    /**
+     * Returns true if a packed message is a 'key-down' event.
+     *
+     * @param packed                    packed midi message
+     * @param returnTrueForVelocity0    set to true to return that it is a note on
+     *                                  event when velocity is 0 the opposite otherwise.
+     * @return                          boolean
+     */
+    public static boolean isNoteOn(int packed, boolean returnTrueForVelocity0) {
+        return ((packed & 0xF0) == 0x90) && (returnTrueForVelocity0 || getData2(packed) != 0);
+    }
+
+    /**
+     * Returns true if a packed message is a 'key-up' event.
+     *
+     * @param packed                        packed midi message
+     * @param returnTrueForNoteOnVelocity0  set to true to return that it is a note on
+     *                                      event when velocity is 0 the opposite otherwise.
+     * @return                              boolean
+     */
+    public static boolean isNoteOff(int packed, boolean returnTrueForNoteOnVelocity0) {
+        return ((packed & 0xF0) == 0x80)
+                || (returnTrueForNoteOnVelocity0
+                && (getData2(packed) == 0)
+                && ((packed & 0xF0) == 0x90));
+    }
+
+    /**
+     * Returns true if a packed message is a 'key-down' or 'key-up' event.
+     *
+     * @param packed    packed midi message
+     * @return          boolean
+     */
+    public static boolean isNoteOnOrOff(int packed) {
+        return (packed & 0xE0) == 0x80;
+    }
+
+    /**
+     * Returns the midi note number of a packed message.
+     *
+     * @param packed    packed midi message
+     * @return          int
+     */
+    public static int getNoteNumber(int packed) {
+        return getData1(packed);
+    }
+
+    /**
+     * Returns a copy of a note-on, note-off or aftertouch packed message with a new note number.
+     *
+     * @param packed        packed midi message
+     * @param newNoteNumber the midi note number, in the range 0 to 127
+     * @return              packed midi message
+     */
+    public static int withNoteNumber(int packed, int newNoteNumber) {
+        if (isNoteOnOrOff(packed) || isPolyAftertouch(packed)) {
+            return (packed & ~0xFF00) | (newNoteNumber & 0x7F) << 8;
+        }
+
+        return packed;
+    }
+
+    /**
+     * Returns the velocity of a note-on or note-off packed message.
+     *
+     * @param packed    packed midi message
+     * @return          int
+     */
+    public static int getVelocity(int packed) {
+        if (isNoteOnOrOff(packed)) {
+            return getData2(packed);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Returns a copy of a note-on or note-off packed message with a new velocity.
+     *
+     * @param packed        packed midi message
+     * @param newVelocity   the note velocity, in the range 0 to 127
+     * @return              packed midi message
+     */
+    public static int withVelocity(int packed, int newVelocity) {
+        if (isNoteOnOrOff(packed)) {
+            return (packed & ~0xFF0000) | (newVelocity & 0x7F) << 16;
+        }
+
+        return packed;
+    }
+
+    /**
+     * Returns true if a packed message is a program (patch) change message.
+     *
+     * @param packed    packed midi message
+     * @return          boolean
+     */
+    public static boolean isProgramChange(int packed) {
+        return (packed & 0xF0) == 0xC0;
+    }
+
+    /**
+     * Returns the program number of a program change packed message.
+     *
+     * @param packed    packed midi message
+     * @return          int
+     */
+    public static int getProgramChangeNumber(int packed) {
+        return getData1(packed);
+    }
+
+    /**
+     * Returns true if a packed message is a pitch-wheel move.
+     *
+     * @param packed    packed midi message
+     * @return          boolean
+     */
+    public static boolean isPitchWheel(int packed) {
+        return (packed & 0xF0) == 0xE0;
+    }
+
+    /**
+     * Returns the pitch wheel position of a pitch-wheel move packed message.
+     *
+     * @param packed    packed midi message
+     * @return          int, 0 to 16383
+     */
+    public static int getPitchWheelValue(int packed) {
+        return getData1(packed) | getData2(packed) << 7;
+    }
+
+    /**
+     * Returns true if a packed message is a channel-pressure change event.
+     *
+     * @param packed    packed midi message
+     * @return          boolean
+     */
+    public static boolean isChannelPressure(int packed) {
+        return (packed & 0xF0) == 0xD0;
+    }
+
+    /**
+     * Returns the pressure of a channel pressure change packed message.
+     *
+     * @param packed    packed midi message
+     * @return          int
+     */
+    public static int getChannelPressureValue(int packed) {
+        if (isChannelPressure(packed)) {
+            return getData1(packed);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Returns true if a packed message is a Polyphonic Aftertouch event.
+     *
+     * @param packed    packed midi message
+     * @return          boolean
+     */
+    public static boolean isPolyAftertouch(int packed) {
+        return (packed & 0xF0) == 0xA0;
+    }
+
+    /**
+     * Returns the amount of Polyphonic Aftertouch of an Aftertouch packed message.
+     *
+     * @param packed    packed midi message
+     * @return          int
+     */
+    public static int getPolyAftertouchValue(int packed) {
+        if (isPolyAftertouch(packed)) {
+            return getData2(packed);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Returns true if a packed message is a midi controller message.
+     *
+     * @param packed    packed midi message
+     * @return          boolean
+     */
+    public static boolean isController(int packed) {
+        return (packed & 0xF0) == 0xB0;
+    }
+
+    /**
+     * Returns true if a packed message is a controller message of the specified controller type.
+     *
+     * @param packed            packed midi message
+     * @param controllerType    the midi controller type in the range of 0 to 127
+     * @return                  boolean
+     */
+    public static boolean isControllerOfType(int packed, int controllerType) {
+        return isController(packed) && getData1(packed) == controllerType;
+    }
+
+    /**
+     * Returns the controller number of a controller packed message.
+     *
+     * @param packed    packed midi message
+     * @return          int
+     */
+    public static int getControllerNumber(int packed) {
+        return getData1(packed);
+    }
+
+    /**
+     * Returns the controller value of a controller packed message.
+     *
+     * @param packed    packed midi message
+     * @return          int
+     */
+    public static int getControllerValue(int packed) {
+        return getData2(packed);
+    }
+
+    /**
+     * Returns true if a packed message is a system message (status byte 0xF1 to 0xFF).
+     *
+     * @param packed    packed midi message
+     * @return          boolean
+     */
+    public static boolean isSystemMessage(int packed) {
+        return (packed & 0xF0) == 0xF0;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands the messages of a MidiIn native callback thread over to a consumer thread through a
+ * {@link SpscRingBuffer}, the consumer calling the Broadcaster listeners directly
+ * (see {@link Broadcaster#dispatch(UUID, MidiMessage, com.sun.jna.Pointer)}).<br>
+ * Messages offered while the ring is full, or once stopped, are dropped and counted.<br>
+ * Listeners receive a null userData, as when broadcast: the internal callback is registered without any.
+ */
+class RingDispatcher implements Runnable, MidiIn.MessageSink {
+    private final Logger logger = LoggerFactory.getLogger(RingDispatcher.class);
+
+    private final UUID uuid;
+    private final SpscRingBuffer<MidiMessage> ring;
+    private final WaitStrategy waitStrategy;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Thread consumer;
+    private volatile boolean running = true;
+
+    // Set by stop(): closed first, drained once the consumer is gone and the ring emptied (under the ring lock).
+    private volatile boolean closed = false;
+    private boolean drained = false;
+
+    RingDispatcher(UUID uuid, int capacity, WaitStrategy waitStrategy, String threadName) {
+        if (waitStrategy == null) {
+            throw new NullPointerException("waitStrategy is 'null' - can't create a ring dispatcher.");
+        }
+
+        this.uuid = uuid;
+        this.ring = new SpscRingBuffer<>(capacity);
+        this.waitStrategy = waitStrategy;
+
+        consumer = new Thread(this, threadName);
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Hand a message over to the consumer thread (producer thread only), which then owns
+     * (and releases) the caller's reference.
+     *
+     * @param midiMessage   MidiMessage
+     * @return              false when the ring was full and the message dropped.
+     */
+    @Override
+    public boolean offer(MidiMessage midiMessage) {
+        if (closed) {
+            droppedCount.incrementAndGet();
+            midiMessage.release();
+            return false;
+        }
+
+        if (ring.offer(midiMessage)) {
+            // Stopped while offering: release the message if the final drain is already over.
+            if (closed) {
+                synchronized (ring) {
+                    if (drained) {
+                        releasePending();
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        droppedCount.incrementAndGet();
+        midiMessage.release();
+        return false;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            MidiMessage midiMessage = ring.poll();
+
+            if (midiMessage == null) {
+                waitStrategy.idle();
+                continue;
+            }
+
+            dispatch(midiMessage);
+        }
+
+        // Deliver what was already handed over.
+        MidiMessage midiMessage;
+        while ((midiMessage = ring.poll()) != null) {
+            dispatch(midiMessage);
+        }
+    }
+
+    private void dispatch(MidiMessage midiMessage) {
+        try {
+            Broadcaster.dispatch(uuid, midiMessage, null);
+        } catch (RuntimeException re) {
+            logger.error("Midi message listener failed.", re);
+        } finally {
+            midiMessage.release();
+        }
+    }
+
+    /**
+     * Release the messages left in the ring, counted as dropped - the consumer thread must be gone
+     * and the ring lock held.
+     */
+    private void releasePending() {
+        MidiMessage midiMessage;
+
+        while ((midiMessage = ring.poll()) != null) {
+            droppedCount.incrementAndGet();
+            midiMessage.release();
+        }
+    }
+
+    /**
+     * Stop the consumer thread once it has delivered the pending messages, then release any message
+     * offered too late for it.
+     */
+    void stop() {
+        closed = true;
+        running = false;
+        LockSupport.unpark(consumer);
+
+        try {
+            consumer.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        synchronized (ring) {
+            releasePending();
+            drained = true;
+        }
+    }
+
+    /**
+     * Return the number of messages dropped for lack of room in the ring.
+     *
+     * @return long
+     */
+    @Override
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Return the number of messages waiting in the ring.
+     *
+     * @return int
+     */
+    int getPendingCount() {
+        return ring.size();
+    }
+}
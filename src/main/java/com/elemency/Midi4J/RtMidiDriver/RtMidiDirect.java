@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J.RtMidiDriver;
+
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JNA direct mapping (see Native.register) of the per-message RtMidi functions, skipping the proxy
+ * reflection and argument conversion of the interface mapped {@link RtMidiLibrary}, which still
+ * handles everything else.<br><br>
+ *
+ * Selected at startup with the system property: -Dmidi4j.jna.direct=true<br>
+ * Devices are passed as raw pointers to their native RtMidiDevice structure: the structure fields
+ * (ok, errorMsg) are therefore not read back after each call.
+ */
+public final class RtMidiDirect {
+    /** System property enabling the direct mapping when set to true. */
+    public static final String DIRECT_PROPERTY = "midi4j.jna.direct";
+
+    private static final Logger logger = LoggerFactory.getLogger(RtMidiDirect.class);
+    private static final boolean ENABLED = register();
+
+    private RtMidiDirect() {
+    }
+
+    private static boolean register() {
+        if (!Boolean.getBoolean(DIRECT_PROPERTY)) {
+            return false;
+        }
+
+        try {
+            Native.register(RtMidiDirect.class, RtMidiLibrary.JNA_LIBRARY_NAME);
+            logger.info("RtMidi direct mapping enabled.");
+            return true;
+
+        } catch (UnsatisfiedLinkError | IllegalArgumentException e) {
+            logger.warn("RtMidi direct mapping unavailable, reverting to interface mapping: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Return true when the direct mapping was requested and successfully registered.
+     *
+     * @return boolean
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Immediately send a single message out an open MIDI output port.<br>
+     *
+     * @param device  Pointer to a valid RtMidiDevice structure<br>
+     * @param message Message to send<br>
+     * @param length  Message length<br>
+     *                Original signature : <code>int rtmidi_out_send_message(RtMidiOutPtr, const unsigned char*, int)</code><br>
+     * @return        int
+     */
+    public static native int rtmidi_out_send_message(Pointer device, byte[] message, int length);
+
+    /**
+     * Same as above, the message being read from native memory, so it isn't copied for the call.<br>
+     *
+     * @param device  Pointer to a valid RtMidiDevice structure<br>
+     * @param message Native memory holding the message to send<br>
+     * @param length  Message length<br>
+     * @return        int
+     */
+    public static native int rtmidi_out_send_message(Pointer device, Pointer message, int length);
+
+    /**
+     * Fill the user-provided native buffer with the data bytes for the next available<br>
+     * MIDI message in the input queue and return the event delta-time in seconds.<br>
+     *
+     * @param device  Pointer to a valid RtMidiDevice structure<br>
+     * @param message Native buffer receiving the message.<br>
+     * @param size    Pointer to a size_t set to the size of message when calling, returning the size of the message obtained.<br>
+     *                Original signature : <code>double rtmidi_in_get_message(RtMidiInPtr, unsigned char*, size_t*)</code><br>
+     * @return        double
+     */
+    public static native double rtmidi_in_get_message(Pointer device, Pointer message, Pointer size);
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J.RtMidiDriver;
+
+import com.elemency.Midi4J.MidiException;
+
+/**
+ * java.lang.foreign (JDK 22+) backend of the RtMidi input callback, using an upcall stub instead of
+ * a JNA Callback and handing the native message bytes over without copying them.<br><br>
+ *
+ * This is the Java 8 placeholder: the actual implementation lives in src/main/java22 and is packaged
+ * into META-INF/versions/22 of the multi-release jar when the build is given a JDK 22 home
+ * (-Pjava22Home=...). Running on an older JDK, or from a jar built without it, the backend is
+ * simply unavailable.
+ */
+public final class RtMidiForeign {
+
+    private RtMidiForeign() {
+    }
+
+    /**
+     * Return true when the java.lang.foreign backend can be used on this runtime.
+     *
+     * @return boolean
+     */
+    public static boolean isAvailable() {
+        return false;
+    }
+
+    /**
+     * Set the native input callback of a device to an upcall stub dispatching to the given handler.
+     *
+     * @param device    Must be a valid IN device
+     * @param handler   RtMidiForeignHandler receiving the messages
+     * @return          AutoCloseable cancelling the callback once closed, its upcall stub being freed with the device.
+     */
+    public static AutoCloseable setInputCallback(RtMidiDevice device, RtMidiForeignHandler handler) {
+        throw new MidiException("The java.lang.foreign backend needs a JDK 22+ runtime and a multi-release build.");
+    }
+
+    /**
+     * Free the upcall stubs of every callback set on a device - only once the device itself has been freed.
+     *
+     * @param device    IN device freed
+     */
+    public static void freeStubs(RtMidiDevice device) {
+    }
+}
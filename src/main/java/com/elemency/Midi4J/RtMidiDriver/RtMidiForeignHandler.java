@@ -0,0 +1,28 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J.RtMidiDriver;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Implement this interface to receive midi messages straight from the native driver through the
+ * java.lang.foreign backend (see {@link RtMidiForeign}).<br>
+ * The message is a read only view on the native RtMidi buffer (no copy): it is only valid until
+ * receiveMessage returns.
+ */
+public interface RtMidiForeignHandler {
+    void receiveMessage(double timeStamp, ByteBuffer message);
+}
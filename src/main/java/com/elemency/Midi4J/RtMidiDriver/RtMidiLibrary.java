@@ -277,6 +277,27 @@ public interface RtMidiLibrary extends Library {
      */
     double rtmidi_in_get_message(RtMidiDevice device, PointerByReference message, size_tByReference size);
 
+    /**
+     * Same as above, filling a caller allocated (and reusable) native buffer.<br>
+     *
+     * @param device  Must be a valid device<br>
+     * @param message Native buffer receiving the message.<br>
+     * @param size    Must be set to the size of \ref message when calling, returns the size of the message obtained.<br>
+     * @return        double
+     */
+    double rtmidi_in_get_message(RtMidiDevice device, Pointer message, size_tByReference size);
+
+    /**
+     * Same as above, the device being passed as a raw pointer to its RtMidiDevice structure,<br>
+     * so the structure fields aren't synced around the call.<br>
+     *
+     * @param device  Pointer to a valid RtMidiDevice structure<br>
+     * @param message Native buffer receiving the message.<br>
+     * @param size    Must be set to the size of \ref message when calling, returns the size of the message obtained.<br>
+     * @return        double
+     */
+    double rtmidi_in_get_message(Pointer device, Pointer message, size_tByReference size);
+
     /* *********************************************************************************************************************
      * 											           RtMidiDevice OUT API
      **********************************************************************************************************************/
@@ -336,6 +357,27 @@ public interface RtMidiLibrary extends Library {
      */
     int rtmidi_out_send_message(RtMidiDevice device, byte[] message, int length);
 
+    /**
+     * Same as above, the device being passed as a raw pointer to its RtMidiDevice structure,<br>
+     * so the structure fields aren't synced around the call.<br>
+     *
+     * @param device  Pointer to a valid RtMidiDevice structure<br>
+     * @param message Message to send<br>
+     * @param length  Message length<br>
+     * @return        int
+     */
+    int rtmidi_out_send_message(Pointer device, byte[] message, int length);
+
+    /**
+     * Same as above, the message being read from native memory, so it isn't copied for the call.<br>
+     *
+     * @param device  Pointer to a valid RtMidiDevice structure<br>
+     * @param message Native memory holding the message to send<br>
+     * @param length  Message length<br>
+     * @return        int
+     */
+    int rtmidi_out_send_message(Pointer device, Pointer message, int length);
+
     /**
      * Represents the <code>size_t</code> C data type, which may be 32 or 64 bits
      * on different systems and store the maximum size of a theoretically possible
@@ -397,5 +439,25 @@ public interface RtMidiLibrary extends Library {
         public size_t getValue() {
             return new size_t(getPointer().getLong(0));
         }
+
+        /**
+         * Set the value without creating a size_t, so the same reference can be reused for each call.
+         * @param value  new value.
+         */
+        public void setLongValue(long value) {
+            if (size_t.SIZE == 8) {
+                getPointer().setLong(0, value);
+            } else {
+                getPointer().setInt(0, (int) value);
+            }
+        }
+
+        /**
+         * Get the value without creating a size_t, so the same reference can be reused for each call.
+         * @return long
+         */
+        public long getLongValue() {
+            return size_t.SIZE == 8 ? getPointer().getLong(0) : getPointer().getInt(0) & 0xFFFFFFFFL;
+        }
     }
 }
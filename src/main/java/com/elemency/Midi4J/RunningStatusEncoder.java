@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Serializes midi messages into a raw midi 1.0 byte stream, leaving out the status byte of a
+ * channel message when it repeats the previous one (running status). On dense controller or note
+ * streams this saves up to a third of the bytes.<br><br>
+ *
+ * Real-time messages don't affect running status, system common and SysEx messages cancel it,
+ * just as {@link MidiStreamParser} expects when decoding the stream back
+ * (see {@link #decode(byte[], int, int, MidiBuffer, double)}).<br><br>
+ *
+ * The encoder only remembers the last status byte written: call {@link #reset()} when starting a new
+ * stream, or whenever the receiving end may have lost track of it. An encoder isn't thread safe.
+ */
+public class RunningStatusEncoder {
+
+    private int runningStatus = 0;
+
+    /**
+     * Forget the running status, so the next channel message is written in full.
+     */
+    public void reset() {
+        runningStatus = 0;
+    }
+
+    /**
+     * Returns the running status (0 when none).
+     *
+     * @return int
+     */
+    public int getRunningStatus() {
+        return runningStatus;
+    }
+
+    /**
+     * Encode a packed midi message (see {@link PackedMidiMessage}) into a byte[].
+     *
+     * @param packed    packed midi message
+     * @param dest      byte[] receiving the encoded bytes (3 bytes at most)
+     * @param offset    index at which the first byte is written
+     * @return          number of bytes written
+     */
+    public int encode(int packed, byte[] dest, int offset) {
+        int size = PackedMidiMessage.getSize(packed);
+        int first = skipStatus(packed & 0xFF) ? 1 : 0;
+
+        for (int i = first; i < size; i++) {
+            dest[offset++] = (byte) (packed >>> (i * 8));
+        }
+
+        return size - first;
+    }
+
+    /**
+     * Encode a packed midi message (see {@link PackedMidiMessage}) into a ByteBuffer.
+     *
+     * @param packed    packed midi message
+     * @param dest      ByteBuffer receiving the encoded bytes (3 bytes at most)
+     * @return          number of bytes written
+     */
+    public int encode(int packed, ByteBuffer dest) {
+        int size = PackedMidiMessage.getSize(packed);
+        int first = skipStatus(packed & 0xFF) ? 1 : 0;
+
+        for (int i = first; i < size; i++) {
+            dest.put((byte) (packed >>> (i * 8)));
+        }
+
+        return size - first;
+    }
+
+    /**
+     * Encode a midi message of any size into a byte[].
+     *
+     * @param midiMessage   MidiMessage
+     * @param dest          byte[] receiving the encoded bytes (the message size at most)
+     * @param offset        index at which the first byte is written
+     * @return              number of bytes written
+     */
+    public int encode(MidiMessage midiMessage, byte[] dest, int offset) {
+        byte[] midiData = midiMessage.rawMidiData();
+        int size = midiMessage.getMidiDataSize();
+        int first = skipStatus(midiData[0] & 0xFF) ? 1 : 0;
+
+        System.arraycopy(midiData, first, dest, offset, size - first);
+        return size - first;
+    }
+
+    /**
+     * Encode a midi message of any size into a ByteBuffer.
+     *
+     * @param midiMessage   MidiMessage
+     * @param dest          ByteBuffer receiving the encoded bytes (the message size at most)
+     * @return              number of bytes written
+     */
+    public int encode(MidiMessage midiMessage, ByteBuffer dest) {
+        byte[] midiData = midiMessage.rawMidiData();
+        int size = midiMessage.getMidiDataSize();
+        int first = skipStatus(midiData[0] & 0xFF) ? 1 : 0;
+
+        dest.put(midiData, first, size - first);
+        return size - first;
+    }
+
+    /**
+     * Encode every event of a MidiBuffer, in order, into a ByteBuffer (time stamps are not encoded).
+     *
+     * @param source    MidiBuffer
+     * @param dest      ByteBuffer receiving the encoded bytes (source.getByteSize() bytes at most)
+     * @return          number of bytes written
+     */
+    public int encode(MidiBuffer source, ByteBuffer dest) {
+        MidiBuffer.Cursor cursor = source.cursor();
+        int written = 0;
+
+        while (cursor.next()) {
+            int size = cursor.getSize();
+            int first = skipStatus(cursor.getStatusByte()) ? 1 : 0;
+
+            for (int i = first; i < size; i++) {
+                dest.put((byte) cursor.getByte(i));
+            }
+
+            written += size - first;
+        }
+
+        return written;
+    }
+
+    /**
+     * Decode a running status byte stream back into a MidiBuffer.
+     *
+     * @param stream    byte[] holding the stream
+     * @param offset    index of the first byte of the stream
+     * @param length    stream length
+     * @param target    MidiBuffer receiving the events
+     * @param timeStamp time stamp given to every event
+     */
+    public static void decode(byte[] stream, int offset, int length, MidiBuffer target, double timeStamp) {
+        new MidiStreamParser(target).parse(stream, offset, length, timeStamp);
+    }
+
+    /**
+     * Returns true when the status byte can be left out, updating the running status.
+     */
+    private boolean skipStatus(int status) {
+        if (status >= 0xF8) {
+            return false;
+        }
+
+        if (status >= 0xF0) {
+            runningStatus = 0;
+            return false;
+        }
+
+        if (status == runningStatus) {
+            return true;
+        }
+
+        runningStatus = status;
+        return false;
+    }
+}
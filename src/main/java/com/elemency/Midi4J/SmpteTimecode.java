@@ -24,6 +24,17 @@ public class SmpteTimecode {
      * @return      String (i.e. 03:06:40:000 - )
      */
     public static String getTimecode(double time) {
+        return appendTimecode(new StringBuilder(16), time).toString();
+    }
+
+    /**
+     * Append a milliseconds time stamp formatted to SMPTE timecode to a caller supplied StringBuilder,
+     * without any intermediate allocation (see {@link #getTimecode(double)}).
+     * @param out   StringBuilder receiving the timecode
+     * @param time  time stamp to convert
+     * @return      out
+     */
+    public static StringBuilder appendTimecode(StringBuilder out, double time) {
 
         time /= 1000;
 
@@ -32,7 +43,18 @@ public class SmpteTimecode {
         int seconds = ((int) time) % 60;
         int millis = ((int) (time * 1000.0)) % 1000;
 
-        return String.format("%02d:%02d:%02d:%03d - ", hours, minutes, seconds, millis);
+        appendPadded(out, hours, 2).append(':');
+        appendPadded(out, minutes, 2).append(':');
+        appendPadded(out, seconds, 2).append(':');
+        return appendPadded(out, millis, 3).append(" - ");
+    }
+
+    private static StringBuilder appendPadded(StringBuilder out, int value, int width) {
+        for (int limit = 10; width > 1 && value >= 0 && value < limit; limit *= 10, width--) {
+            out.append('0');
+        }
+
+        return out.append(value);
     }
 
     /**
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, lock-free, single-producer/single-consumer ring buffer, preallocated at creation.<br><br>
+ *
+ * Exactly one thread may call {@link #offer(Object)} and exactly one (other) thread {@link #poll()}:
+ * each side only writes its own index, publishing it with an ordered (lazy) store, and caches the
+ * other side's index to only read it when the ring looks full or empty.
+ *
+ * @param <E>   element type
+ */
+public class SpscRingBuffer<E> {
+
+    private final Object[] buffer;
+    private final int mask;
+
+    // Written by the consumer only.
+    private final AtomicLong head = new AtomicLong();
+    private long cachedTail = 0;
+
+    // Written by the producer only.
+    private final AtomicLong tail = new AtomicLong();
+    private long cachedHead = 0;
+
+    /**
+     * @param capacity  maximum number of elements, rounded up to the next power of 2.
+     */
+    public SpscRingBuffer(int capacity) {
+        int size = roundCapacity(capacity);
+
+        buffer = new Object[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Validate a ring capacity and round it up to the next power of 2.
+     *
+     * @param capacity  requested capacity
+     * @return          int
+     */
+    static int roundCapacity(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new MidiException("A ring buffer capacity should be in the range 1 to " + (1 << 30));
+        }
+
+        int size = Integer.highestOneBit(capacity);
+        return size < capacity ? size << 1 : size;
+    }
+
+    /**
+     * Add an element (producer thread only).
+     *
+     * @param element   element to add
+     * @return          false when the ring is full, the element not being added.
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("A ring buffer can't hold 'null' elements.");
+        }
+
+        long currentTail = tail.get();
+
+        if (currentTail - cachedHead >= buffer.length) {
+            cachedHead = head.get();
+
+            if (currentTail - cachedHead >= buffer.length) {
+                return false;
+            }
+        }
+
+        buffer[(int) currentTail & mask] = element;
+        tail.lazySet(currentTail + 1);
+        return true;
+    }
+
+    /**
+     * Remove the oldest element (consumer thread only).
+     *
+     * @return  the oldest element, or null when the ring is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long currentHead = head.get();
+
+        if (currentHead >= cachedTail) {
+            cachedTail = tail.get();
+
+            if (currentHead >= cachedTail) {
+                return null;
+            }
+        }
+
+        int index = (int) currentHead & mask;
+        E element = (E) buffer[index];
+        buffer[index] = null;
+        head.lazySet(currentHead + 1);
+        return element;
+    }
+
+    /**
+     * Return the oldest element without removing it (consumer thread only).
+     *
+     * @return  the oldest element, or null when the ring is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        long currentHead = head.get();
+
+        if (currentHead >= cachedTail) {
+            cachedTail = tail.get();
+
+            if (currentHead >= cachedTail) {
+                return null;
+            }
+        }
+
+        return (E) buffer[(int) currentHead & mask];
+    }
+
+    /**
+     * Return the number of elements in the ring (an estimate while both sides are running).
+     *
+     * @return int
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    /**
+     * Return true when the ring holds no element (an estimate while both sides are running).
+     *
+     * @return boolean
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Return the maximum number of elements.
+     *
+     * @return int
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Collects a system-exclusive message received in fragments into a single growable buffer,
+ * and hands it to a listener once its 0xF7 tail byte arrives.<br><br>
+ *
+ * - Bytes received outside a sysex message are ignored.<br>
+ * - Real-time bytes (0xF8 - 0xFF) interleaved within a sysex message are skipped.<br>
+ * - Any other status byte aborts the message in progress (0xF0 starting a new one).<br>
+ * - A message growing beyond the maximum size is dropped up to its tail byte.<br><br>
+ *
+ * The buffer is allocated once and only grows (up to the maximum size), so a steady stream of dumps
+ * doesn't allocate. The SysExView passed to the listener references this buffer: it is only valid
+ * until receiveSysEx returns. An assembler isn't thread safe.
+ */
+public class SysExAssembler {
+
+    private final SysExListener listener;
+    private final int maxSize;
+    private final SysExView view = new SysExView();
+
+    private byte[] data;
+    private ByteBuffer dataBuffer;
+    private int size = 0;
+    private double startTimeStamp = 0;
+    private boolean inProgress = false;
+    private long droppedCount = 0;
+
+    /**
+     * @param initialCapacity   initial buffer capacity in bytes
+     * @param maxSize           maximum sysex message size in bytes, header and tail bytes included
+     * @param listener          SysExListener receiving complete sysex messages
+     */
+    public SysExAssembler(int initialCapacity, int maxSize, SysExListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("listener is 'null' - can't create a SysEx assembler.");
+        }
+
+        if (initialCapacity < 2 || maxSize < initialCapacity) {
+            throw new MidiException("A SysEx assembler capacity should be > 1 and <= its maximum size");
+        }
+
+        this.listener = listener;
+        this.maxSize = maxSize;
+        this.data = new byte[initialCapacity];
+        this.dataBuffer = ByteBuffer.wrap(data);
+    }
+
+    /**
+     * Feed a single byte.
+     *
+     * @param b         midi byte
+     * @param timeStamp time stamp of the fragment holding this byte
+     */
+    public void feed(byte b, double timeStamp) {
+        int value = b & 0xFF;
+
+        if (value >= 0xF8) {
+            return;
+        }
+
+        if (value == 0xF0) {
+            abort();
+            inProgress = true;
+            startTimeStamp = timeStamp;
+            data[size++] = b;
+            return;
+        }
+
+        if (value == 0xF7) {
+            if (inProgress) {
+                data[size++] = b;
+                emit();
+            }
+
+            return;
+        }
+
+        if (value >= 0x80) {
+            abort();
+            return;
+        }
+
+        if (!inProgress) {
+            return;
+        }
+
+        // Always keep room for the tail byte. The rest of the message is then ignored, nothing being in progress.
+        if (size + 2 > maxSize) {
+            abort();
+            return;
+        }
+
+        if (size + 2 > data.length) {
+            grow(size + 2);
+        }
+
+        data[size++] = b;
+    }
+
+    /**
+     * Feed a fragment held in a byte[].
+     *
+     * @param fragment  byte[] holding the fragment
+     * @param offset    index of the first byte of the fragment
+     * @param length    fragment length
+     * @param timeStamp fragment time stamp
+     */
+    public void feed(byte[] fragment, int offset, int length, double timeStamp) {
+        if (fragment == null) {
+            throw new NullPointerException("fragment is 'null' - can't feed it to a SysEx assembler.");
+        }
+
+        for (int i = offset; i < offset + length; i++) {
+            feed(fragment[i], timeStamp);
+        }
+    }
+
+    /**
+     * Feed the remaining bytes of a ByteBuffer (heap or direct), consuming them.
+     *
+     * @param fragment  ByteBuffer holding the fragment
+     * @param timeStamp fragment time stamp
+     */
+    public void feed(ByteBuffer fragment, double timeStamp) {
+        while (fragment.hasRemaining()) {
+            feed(fragment.get(), timeStamp);
+        }
+    }
+
+    /**
+     * Feed a fragment received as a MidiMessage (e.g. an incoming split sysex message).
+     *
+     * @param midiMessage   MidiMessage
+     */
+    public void feed(MidiMessage midiMessage) {
+        feed(midiMessage.rawMidiData(), 0, midiMessage.getMidiDataSize(), midiMessage.getTimeStamp());
+    }
+
+    /**
+     * Drop the message in progress, if any, keeping the allocated buffer.
+     */
+    public void reset() {
+        size = 0;
+        inProgress = false;
+    }
+
+    /**
+     * Returns true while a sysex message is being collected.
+     *
+     * @return boolean
+     */
+    public boolean isInProgress() {
+        return inProgress;
+    }
+
+    /**
+     * Returns the number of sysex messages aborted or dropped for being too large.
+     *
+     * @return long
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Returns the current buffer capacity in bytes.
+     *
+     * @return int
+     */
+    public int getCapacity() {
+        return data.length;
+    }
+
+    private void emit() {
+        inProgress = false;
+
+        try {
+            view.set(dataBuffer, 0, size);
+            listener.receiveSysEx(view, startTimeStamp);
+        } finally {
+            size = 0;
+        }
+    }
+
+    private void abort() {
+        if (inProgress) {
+            droppedCount++;
+        }
+
+        size = 0;
+        inProgress = false;
+    }
+
+    private void grow(int required) {
+        int capacity = Math.max(required, (int) Math.min((long) data.length << 1, maxSize));
+        byte[] grown = new byte[capacity];
+        System.arraycopy(data, 0, grown, 0, size);
+
+        data = grown;
+        dataBuffer = ByteBuffer.wrap(data);
+    }
+
+    /**
+     * Implement this interface to receive the sysex messages collected by a SysExAssembler.
+     */
+    public interface SysExListener {
+        void receiveSysEx(SysExView sysEx, double timeStamp);
+    }
+}
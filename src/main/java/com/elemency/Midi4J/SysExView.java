@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A read only view on a system-exclusive message (0xF0 ... 0xF7) held in a slice of an existing
+ * buffer. Nothing is copied unless explicitly asked to (copyTo, toMidiMessage...), which keeps
+ * large sample or patch dumps to a single pass over their data.<br><br>
+ *
+ * A view doesn't own its data: it is only valid as long as the slice it references isn't modified.
+ */
+public final class SysExView {
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    SysExView() {
+    }
+
+    private SysExView(ByteBuffer buffer, int offset, int length) {
+        set(buffer, offset, length);
+    }
+
+    /**
+     * Creates a view on a well formed sysex message held in a byte[].
+     *
+     * @param data      byte[] holding the message
+     * @param offset    index of the 0xF0 header byte
+     * @param length    message length, header and tail bytes included
+     * @return          SysExView
+     */
+    public static SysExView wrap(byte[] data, int offset, int length) {
+        if (data == null) {
+            throw new NullPointerException("data is 'null' - can't create a SysEx view on it.");
+        }
+
+        return new SysExView(ByteBuffer.wrap(data), offset, length);
+    }
+
+    /**
+     * Creates a view on a well formed sysex message held in a ByteBuffer (heap or direct).
+     *
+     * @param data      ByteBuffer holding the message
+     * @param offset    absolute index of the 0xF0 header byte
+     * @param length    message length, header and tail bytes included
+     * @return          SysExView
+     */
+    public static SysExView wrap(ByteBuffer data, int offset, int length) {
+        if (data == null) {
+            throw new NullPointerException("data is 'null' - can't create a SysEx view on it.");
+        }
+
+        return new SysExView(data, offset, length);
+    }
+
+    /**
+     * Point this (reusable) view to another slice.
+     */
+    void set(ByteBuffer buffer, int offset, int length) {
+        if (length < 2 || offset < 0 || offset + length > buffer.capacity()) {
+            throw new MidiException("Invalid SysEx slice - offset: " + offset + ", length: " + length);
+        }
+
+        if ((buffer.get(offset) & 0xFF) != 0xF0 || (buffer.get(offset + length - 1) & 0xFF) != 0xF7) {
+            throw new MidiException("A SysEx message must start with 0xF0 and end with 0xF7");
+        }
+
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Returns the message length, header and tail bytes included.
+     *
+     * @return int
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the size of the sysex data, header and tail bytes excluded.
+     *
+     * @return int
+     */
+    public int getPayloadSize() {
+        return length - 2;
+    }
+
+    /**
+     * Returns a byte of the message, header and tail bytes included.
+     *
+     * @param index index of the byte, 0 being the 0xF0 header
+     * @return      the (unsigned) byte
+     */
+    public int getByte(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+        }
+
+        return buffer.get(offset + index) & 0xFF;
+    }
+
+    /**
+     * Returns a byte of the sysex data, header and tail bytes excluded.
+     *
+     * @param index index of the byte in the sysex data
+     * @return      the (unsigned) byte
+     */
+    public int getPayloadByte(int index) {
+        if (index < 0 || index >= length - 2) {
+            throw new IndexOutOfBoundsException("index: " + index + ", payload size: " + (length - 2));
+        }
+
+        return buffer.get(offset + 1 + index) & 0xFF;
+    }
+
+    /**
+     * Returns a read only ByteBuffer on the whole message (no copy).
+     *
+     * @return ByteBuffer
+     */
+    public ByteBuffer asReadOnlyBuffer() {
+        return slice(offset, length);
+    }
+
+    /**
+     * Returns a read only ByteBuffer on the sysex data, header and tail bytes excluded (no copy).
+     *
+     * @return ByteBuffer
+     */
+    public ByteBuffer payloadAsReadOnlyBuffer() {
+        return slice(offset + 1, length - 2);
+    }
+
+    /**
+     * Copy the whole message into a byte[].
+     *
+     * @param dest          byte[] receiving the message
+     * @param destOffset    index at which the 0xF0 header byte is written
+     * @return              number of bytes written
+     */
+    public int copyTo(byte[] dest, int destOffset) {
+        copy(offset, dest, destOffset, length);
+        return length;
+    }
+
+    /**
+     * Copy the sysex data, header and tail bytes excluded, into a byte[].
+     *
+     * @param dest          byte[] receiving the sysex data
+     * @param destOffset    index at which the first data byte is written
+     * @return              number of bytes written
+     */
+    public int copyPayloadTo(byte[] dest, int destOffset) {
+        copy(offset + 1, dest, destOffset, length - 2);
+        return length - 2;
+    }
+
+    /**
+     * Creates a new MidiMessage owning a copy of this message.
+     *
+     * @param timeStamp time stamp
+     * @return          MidiMessage
+     */
+    public MidiMessage toMidiMessage(double timeStamp) {
+        byte[] midiData = new byte[length];
+        copyTo(midiData, 0);
+
+        return new MidiMessage(midiData, length, timeStamp);
+    }
+
+    private ByteBuffer slice(int from, int size) {
+        ByteBuffer view = buffer.asReadOnlyBuffer();
+        view.limit(from + size).position(from);
+        return view.slice();
+    }
+
+    private void copy(int from, byte[] dest, int destOffset, int size) {
+        if (buffer.hasArray()) {
+            System.arraycopy(buffer.array(), buffer.arrayOffset() + from, dest, destOffset, size);
+            return;
+        }
+
+        for (int i = 0; i < size; i++) {
+            dest[destOffset + i] = buffer.get(from + i);
+        }
+    }
+}
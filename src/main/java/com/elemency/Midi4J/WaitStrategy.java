@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a consumer thread waits when it finds nothing to process, trading cpu usage for latency.
+ */
+public enum WaitStrategy {
+    /** Keep polling: lowest latency, burns a whole core. */
+    BUSY_SPIN {
+        @Override
+        public void idle() {
+        }
+    },
+
+    /** Give the cpu away between polls: low latency while sharing the core. */
+    YIELD {
+        @Override
+        public void idle() {
+            Thread.yield();
+        }
+    },
+
+    /** Sleep between polls: negligible cpu usage, up to PARK_NANOS of added latency. */
+    PARK {
+        @Override
+        public void idle() {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    };
+
+    /** Time a PARK consumer sleeps between polls. */
+    public static final long PARK_NANOS = 50_000;
+
+    /**
+     * Wait before the next poll.
+     */
+    public abstract void idle();
+}
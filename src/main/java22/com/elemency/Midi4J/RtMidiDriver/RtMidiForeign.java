@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J.RtMidiDriver;
+
+import com.elemency.Midi4J.MidiException;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Pointer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SymbolLookup;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * java.lang.foreign (JDK 22+) backend of the RtMidi input callback, using an upcall stub instead of
+ * a JNA Callback and handing the native message bytes over without copying them.<br><br>
+ *
+ * The RtMidi library is located the same way JNA does (jna.library.path...), then bound through the
+ * native linker. Devices are still created and managed through {@link RtMidiLibrary}.<br>
+ * Cancelling a callback doesn't wait for an upcall already running on the RtMidi thread: the upcall stubs
+ * of a device are only freed with the device (see {@link #freeStubs(RtMidiDevice)}).
+ */
+public final class RtMidiForeign {
+
+    private static final Logger logger = LoggerFactory.getLogger(RtMidiForeign.class);
+
+    private static final Linker LINKER = Linker.nativeLinker();
+
+    // void (*RtMidiCCallback)(double timeStamp, const unsigned char* message, size_t messageSize, void* userData)
+    private static final FunctionDescriptor CALLBACK_DESCRIPTOR = FunctionDescriptor.ofVoid(
+            ValueLayout.JAVA_DOUBLE, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG, ValueLayout.ADDRESS);
+
+    private static final MethodHandle SET_CALLBACK;
+    private static final MethodHandle CANCEL_CALLBACK;
+    private static final MethodHandle DISPATCH;
+
+    // Upcall stub arenas per device address, kept until the device is freed.
+    private static final Map<Long, List<Arena>> STUB_ARENAS = new HashMap<>();
+
+    static {
+        MethodHandle setCallback = null;
+        MethodHandle cancelCallback = null;
+        MethodHandle dispatch = null;
+
+        try {
+            if (!LINKER.canonicalLayouts().get("size_t").equals(ValueLayout.JAVA_LONG)) {
+                throw new UnsupportedOperationException("only 64 bit size_t platforms are supported");
+            }
+
+            SymbolLookup lookup = SymbolLookup.libraryLookup(findLibrary(), Arena.global());
+
+            setCallback = LINKER.downcallHandle(
+                    lookup.find("rtmidi_in_set_callback").orElseThrow(),
+                    FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS));
+
+            cancelCallback = LINKER.downcallHandle(
+                    lookup.find("rtmidi_in_cancel_callback").orElseThrow(),
+                    FunctionDescriptor.ofVoid(ValueLayout.ADDRESS));
+
+            dispatch = MethodHandles.lookup().findVirtual(Upcall.class, "dispatch",
+                    MethodType.methodType(void.class, double.class, MemorySegment.class, long.class, MemorySegment.class));
+
+        } catch (Throwable t) {
+            logger.warn("java.lang.foreign backend unavailable: " + t);
+            setCallback = null;
+        }
+
+        SET_CALLBACK = setCallback;
+        CANCEL_CALLBACK = cancelCallback;
+        DISPATCH = dispatch;
+    }
+
+    private RtMidiForeign() {
+    }
+
+    /**
+     * Return true when the java.lang.foreign backend can be used on this runtime.
+     *
+     * @return boolean
+     */
+    public static boolean isAvailable() {
+        return SET_CALLBACK != null;
+    }
+
+    /**
+     * Set the native input callback of a device to an upcall stub dispatching to the given handler.
+     *
+     * @param device    Must be a valid IN device
+     * @param handler   RtMidiForeignHandler receiving the messages
+     * @return          AutoCloseable cancelling the callback once closed, its upcall stub being freed with the device.
+     */
+    public static AutoCloseable setInputCallback(RtMidiDevice device, RtMidiForeignHandler handler) {
+        if (!isAvailable()) {
+            throw new MidiException("The java.lang.foreign backend couldn't be initialised - see log.");
+        }
+
+        if (device == null || handler == null) {
+            throw new NullPointerException("device or handler is 'null' - can't set a foreign callback.");
+        }
+
+        long deviceAddress = Pointer.nativeValue(device.getPointer());
+        MemorySegment deviceSegment = MemorySegment.ofAddress(deviceAddress);
+        Arena arena = Arena.ofShared();
+
+        try {
+            MemorySegment stub = LINKER.upcallStub(DISPATCH.bindTo(new Upcall(handler)), CALLBACK_DESCRIPTOR, arena);
+            SET_CALLBACK.invokeExact(deviceSegment, stub, MemorySegment.NULL);
+
+        } catch (Throwable t) {
+            arena.close();
+            throw new MidiException("Foreign callback couldn't be set: " + t);
+        }
+
+        synchronized (STUB_ARENAS) {
+            STUB_ARENAS.computeIfAbsent(deviceAddress, address -> new ArrayList<>()).add(arena);
+        }
+
+        return () -> {
+            try {
+                CANCEL_CALLBACK.invokeExact(deviceSegment);
+            } catch (Throwable t) {
+                throw new MidiException("Foreign callback couldn't be cancelled: " + t);
+            }
+        };
+    }
+
+    /**
+     * Free the upcall stubs of every callback set on a device - only once the device itself has been freed,
+     * so no native thread can still be running one of them.
+     *
+     * @param device    IN device freed
+     */
+    public static void freeStubs(RtMidiDevice device) {
+        List<Arena> arenas;
+
+        synchronized (STUB_ARENAS) {
+            arenas = STUB_ARENAS.remove(Pointer.nativeValue(device.getPointer()));
+        }
+
+        if (arenas != null) {
+            for (Arena arena : arenas) {
+                arena.close();
+            }
+        }
+    }
+
+    private static String findLibrary() {
+        File file = NativeLibrary.getInstance(RtMidiLibrary.JNA_LIBRARY_NAME).getFile();
+        return file != null ? file.getAbsolutePath() : System.mapLibraryName(RtMidiLibrary.JNA_LIBRARY_NAME);
+    }
+
+    /**
+     * Upcall target bound to a handler. An exception escaping an upcall crashes the VM: they are logged instead.
+     */
+    private static final class Upcall {
+        private final RtMidiForeignHandler handler;
+
+        Upcall(RtMidiForeignHandler handler) {
+            this.handler = handler;
+        }
+
+        @SuppressWarnings("unused")
+        void dispatch(double timeStamp, MemorySegment message, long messageSize, MemorySegment userData) {
+            try {
+                handler.receiveMessage(timeStamp, message.reinterpret(messageSize).asReadOnly().asByteBuffer());
+            } catch (Throwable t) {
+                logger.error("Foreign midi in handler failed: " + t);
+            }
+        }
+    }
+}
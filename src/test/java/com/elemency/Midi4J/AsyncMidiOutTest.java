@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import com.sun.jna.Memory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncMidiOutTest {
+
+    @Test
+    void sendsInOrderAndFlushesOnClose() {
+        List<Integer> notes = Collections.synchronizedList(new ArrayList<>());
+
+        AsyncMidiOut out = new AsyncMidiOut(midiMessage -> notes.add(midiMessage.getNoteNumber()), 256,
+                AsyncMidiOut.OverflowPolicy.BLOCK, WaitStrategy.PARK, "writer-test");
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(out.sendMessage(new MidiMessage(0x90, i % 128, 100, 0)));
+        }
+        out.close();
+
+        assertEquals(1000, notes.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 128, (int) notes.get(i));
+        }
+        assertEquals(1000, out.getSentCount());
+        assertEquals(0, out.getDroppedCount());
+        assertFalse(out.sendMessage(new MidiMessage(0x90, 60, 100, 0)));
+    }
+
+    @Test
+    void overflowPolicies() throws InterruptedException {
+        for (AsyncMidiOut.OverflowPolicy policy : new AsyncMidiOut.OverflowPolicy[]{
+                AsyncMidiOut.OverflowPolicy.DROP_NEWEST, AsyncMidiOut.OverflowPolicy.DROP_OLDEST}) {
+
+            List<Integer> notes = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch sending = new CountDownLatch(1);
+            CountDownLatch backendSlow = new CountDownLatch(1);
+
+            // The first message stalls the writer, so the queue fills up behind it.
+            AsyncMidiOut out = new AsyncMidiOut(midiMessage -> {
+                sending.countDown();
+                try {
+                    backendSlow.await();
+                } catch (InterruptedException ignored) {
+                }
+                notes.add(midiMessage.getNoteNumber());
+            }, 4, policy, WaitStrategy.PARK, "writer-test");
+
+            out.sendMessage(new MidiMessage(0x90, 0, 100, 0));
+            assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+            for (int note = 1; note <= 6; note++) {
+                out.sendMessage(new MidiMessage(0x90, note, 100, 0));
+            }
+
+            assertEquals(4, out.getQueueDepth());
+            assertEquals(4, out.getHighWaterMark());
+            assertEquals(2, out.getDroppedCount());
+
+            backendSlow.countDown();
+            out.close();
+
+            if (policy == AsyncMidiOut.OverflowPolicy.DROP_NEWEST) {
+                assertEquals(Arrays.asList(0, 1, 2, 3, 4), notes);
+            } else {
+                assertEquals(Arrays.asList(0, 3, 4, 5, 6), notes);
+            }
+        }
+    }
+
+    @Test
+    void closeReleasesBlockedProducer() throws InterruptedException {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch backendSlow = new CountDownLatch(1);
+
+        AsyncMidiOut out = new AsyncMidiOut(midiMessage -> {
+            sending.countDown();
+            try {
+                backendSlow.await();
+            } catch (InterruptedException ignored) {
+            }
+        }, 2, AsyncMidiOut.OverflowPolicy.BLOCK, WaitStrategy.PARK, "writer-test");
+
+        out.sendMessage(new MidiMessage(0x90, 0, 100, 0));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        out.sendMessage(new MidiMessage(0x90, 1, 100, 0));
+        out.sendMessage(new MidiMessage(0x90, 2, 100, 0));
+
+        MidiMessagePool pool = new MidiMessagePool(4);
+        Memory nativeData = new Memory(3);
+        nativeData.write(0, new byte[]{(byte) 0x90, 3, 100}, 0, 3);
+        MidiMessage blocked = pool.acquire(nativeData, 3, 0);
+
+        boolean[] accepted = {true};
+        Thread producer = new Thread(() -> accepted[0] = out.sendMessage(blocked));
+        producer.start();
+
+        Thread closer = new Thread(out::close);
+        closer.start();
+
+        // The producer gives up once closing, even though the writer is still stuck sending.
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        assertFalse(accepted[0]);
+
+        backendSlow.countDown();
+        closer.join(5000);
+        assertFalse(closer.isAlive());
+
+        assertEquals(3, out.getSentCount());
+        assertEquals(1, out.getDroppedCount());
+
+        blocked.release();
+        assertEquals(1, pool.getIdleCount(3));
+    }
+
+    @Test
+    void everyMessageIsSentOrDroppedWhenClosingUnderLoad() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 20_000;
+
+        for (AsyncMidiOut.OverflowPolicy policy : AsyncMidiOut.OverflowPolicy.values()) {
+            AsyncMidiOut out = new AsyncMidiOut(midiMessage -> {
+            }, 8, policy, WaitStrategy.YIELD, "writer-test");
+
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        out.sendMessage(new MidiMessage(0x90, i % 128, 100, 0));
+                    }
+                }));
+            }
+
+            threads.forEach(Thread::start);
+            Thread.sleep(5);
+            out.close();
+
+            for (Thread thread : threads) {
+                thread.join(10_000);
+                assertFalse(thread.isAlive());
+            }
+
+            assertEquals((long) producers * perProducer, out.getSentCount() + out.getDroppedCount(), policy.name());
+            assertEquals(0, out.getQueueDepth());
+        }
+    }
+
+    @Test
+    void pooledMessagesAreReleasedOnceSent() {
+        MidiMessagePool pool = new MidiMessagePool(4);
+        AsyncMidiOut out = new AsyncMidiOut(midiMessage -> {
+        }, 16, AsyncMidiOut.OverflowPolicy.BLOCK, WaitStrategy.YIELD, "writer-test");
+
+        Memory nativeData = new Memory(3);
+        nativeData.write(0, new byte[]{(byte) 0x90, 60, 100}, 0, 3);
+
+        MidiMessage midiMessage = pool.acquire(nativeData, 3, 0);
+        out.sendMessage(midiMessage);
+        midiMessage.release();
+        assertEquals(0, pool.getIdleCount(3));
+
+        out.close();
+        assertEquals(1, pool.getIdleCount(3));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImmutableMidiMessageTest {
+
+    final byte[] midiData = {(byte) 0x90, 60, 100};
+
+    @Test
+    void createdFromACopy() {
+        ImmutableMidiMessage msg = ImmutableMidiMessage.of(midiData, 3, 6);
+        midiData[1] = 62;
+
+        assertEquals(60, msg.getNoteNumber());
+        assertEquals(6, msg.getTimeStamp());
+    }
+
+    @Test
+    void midiDataNeverLeaks() {
+        ImmutableMidiMessage msg = ImmutableMidiMessage.of(midiData, 3, 0);
+        msg.getMidiData()[1] = 62;
+
+        assertEquals(60, msg.getNoteNumber());
+    }
+
+    @Test
+    void settersAreRejected() {
+        ImmutableMidiMessage msg = ImmutableMidiMessage.of(midiData, 3, 0);
+
+        assertThrows(UnsupportedOperationException.class, () -> msg.setChannel(2));
+        assertThrows(UnsupportedOperationException.class, () -> msg.setNoteNumber(61));
+        assertThrows(UnsupportedOperationException.class, () -> msg.setVelocity(10));
+        assertThrows(UnsupportedOperationException.class, () -> msg.setFloatVelocity(0.5F));
+        assertThrows(UnsupportedOperationException.class, () -> msg.multiplyVelocity(0.5F));
+        assertThrows(UnsupportedOperationException.class, () -> msg.setTimeStamp(3));
+        assertThrows(UnsupportedOperationException.class, () -> msg.addToTimeStamp(3));
+    }
+
+    @Test
+    void transformationsReturnNewInstances() {
+        ImmutableMidiMessage msg = ImmutableMidiMessage.of(midiData, 3, 0);
+
+        ImmutableMidiMessage result = msg.withChannel(5).withNoteNumber(64).withVelocity(80);
+        assertEquals(5, result.getChannel());
+        assertEquals(64, result.getNoteNumber());
+        assertEquals(80, result.getVelocity());
+
+        assertEquals(1, msg.getChannel());
+        assertEquals(60, msg.getNoteNumber());
+        assertEquals(100, msg.getVelocity());
+
+        assertEquals(50, msg.withMultipliedVelocity(0.5F).getVelocity(), 1);
+        assertThrows(MidiException.class, () -> msg.withChannel(17));
+    }
+
+    @Test
+    void withTimeStampSharesData() {
+        ImmutableMidiMessage msg = ImmutableMidiMessage.of(midiData, 3, 0);
+        ImmutableMidiMessage later = msg.withTimeStamp(9);
+
+        assertEquals(9, later.getTimeStamp());
+        assertEquals(0, msg.getTimeStamp());
+        assertSame(msg.rawMidiData(), later.rawMidiData());
+    }
+
+    @Test
+    void conversions() {
+        MidiMessage mutable = new MidiMessage(midiData, 3, 6);
+        ImmutableMidiMessage msg = mutable.toImmutable();
+        assertSame(msg, msg.toImmutable());
+
+        mutable.setChannel(3);
+        assertEquals(1, msg.getChannel());
+
+        MidiMessage back = msg.toMidiMessage();
+        back.setChannel(4);
+        assertEquals(4, back.getChannel());
+        assertEquals(1, msg.getChannel());
+        assertEquals("Note ON  C3   Velocity 100 Channel 01", msg.getDescription());
+    }
+
+    @Test
+    void copiesKeepTheArrivalTime() {
+        MidiMessage mutable = new MidiMessage(midiData, 3, 6);
+        assertEquals(0, mutable.getArrivalTime());
+        mutable.setArrivalTime(123_456_789L);
+
+        ImmutableMidiMessage msg = mutable.toImmutable();
+        assertEquals(123_456_789L, msg.getArrivalTime());
+        assertEquals(123_456_789L, msg.withTimeStamp(2).getArrivalTime());
+        assertEquals(123_456_789L, msg.withChannel(2).getArrivalTime());
+        assertEquals(123_456_789L, msg.toMidiMessage().getArrivalTime());
+    }
+}
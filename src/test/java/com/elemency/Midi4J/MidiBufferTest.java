@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import com.sun.jna.Memory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MidiBufferTest {
+
+    @ParameterizedTest()
+    @CsvSource({"false", "true"})
+    void appendAndIterate(boolean direct) {
+        MidiBuffer buffer = new MidiBuffer(16, direct);
+        buffer.append(new byte[]{(byte) 0x90, 60, 100}, 0, 3, 1.5);
+        buffer.append(new MidiMessage(new byte[]{(byte) 0xF0, 1, 2, 3, (byte) 0xF7}, 5, 2.5));
+        buffer.appendPacked(PackedMidiMessage.programChange(2, 7), 3.5);
+
+        assertEquals(3, buffer.getEventCount());
+        assertEquals(3 * MidiBuffer.EVENT_HEADER_SIZE + 10, buffer.getByteSize());
+        assertTrue(buffer.getCapacity() >= buffer.getByteSize());
+        assertEquals(direct, buffer.isDirect());
+
+        MidiBuffer.Cursor cursor = buffer.cursor();
+        assertThrows(IllegalStateException.class, cursor::getSize);
+
+        assertTrue(cursor.next());
+        assertEquals(1.5, cursor.getTimeStamp());
+        assertEquals(3, cursor.getSize());
+        assertEquals(0x90, cursor.getStatusByte());
+        assertEquals(PackedMidiMessage.noteOn(1, 60, 100), cursor.getPackedMessage());
+
+        assertTrue(cursor.next());
+        assertEquals(2.5, cursor.getTimeStamp());
+        assertEquals(5, cursor.getSize());
+        assertEquals(0xF7, cursor.getByte(4));
+        assertThrows(MidiException.class, cursor::getPackedMessage);
+        assertTrue(cursor.toMidiMessage().isSysEx());
+
+        assertTrue(cursor.next());
+        assertEquals(3.5, cursor.getTimeStamp());
+        byte[] dest = new byte[4];
+        assertEquals(2, cursor.copyTo(dest, 1));
+        assertArrayEquals(new byte[]{0, (byte) 0xC1, 7, 0}, dest);
+
+        assertFalse(cursor.next());
+
+        cursor.reset();
+        assertTrue(cursor.next());
+        assertEquals(1.5, cursor.getTimeStamp());
+    }
+
+    @ParameterizedTest()
+    @CsvSource({"false", "true"})
+    void appendFromNative(boolean direct) {
+        Memory nativeData = new Memory(5);
+        nativeData.write(0, new byte[]{(byte) 0xF0, 1, 2, 3, (byte) 0xF7}, 0, 5);
+
+        MidiBuffer buffer = new MidiBuffer(16, direct);
+        buffer.append(nativeData, 3, 1);
+        buffer.append(nativeData, 5, 2);
+
+        MidiBuffer.Cursor cursor = buffer.cursor();
+        assertTrue(cursor.next());
+        assertEquals(3, cursor.getSize());
+        assertEquals(2, cursor.getByte(2));
+
+        assertTrue(cursor.next());
+        assertEquals(2, cursor.getTimeStamp());
+        assertEquals(0xF7, cursor.getByte(4));
+    }
+
+    @Test
+    void clearKeepsCapacity() {
+        MidiBuffer buffer = new MidiBuffer(16, false);
+        for (int i = 0; i < 100; i++) {
+            buffer.appendPacked(PackedMidiMessage.noteOn(1, i, 100), i);
+        }
+
+        assertEquals(100, buffer.getEventCount());
+        int capacity = buffer.getCapacity();
+
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.getByteSize());
+        assertEquals(capacity, buffer.getCapacity());
+        assertFalse(buffer.cursor().next());
+    }
+
+    @Test
+    void cursorDescribesEvents() {
+        MidiBuffer buffer = new MidiBuffer();
+        MidiMessage noteOn = new MidiMessage(0x90, 60, 100, 0);
+        buffer.append(noteOn);
+        buffer.appendPacked(PackedMidiMessage.pack(0xC0, 5), 0);
+
+        StringBuilder description = new StringBuilder();
+        MidiBuffer.Cursor cursor = buffer.cursor();
+
+        assertTrue(cursor.next());
+        assertEquals(noteOn.getDescription(), cursor.appendDescription(description).toString());
+
+        assertTrue(cursor.next());
+        description.setLength(0);
+        assertEquals(new MidiMessage(0xC0, 5, 0).getDescription(), cursor.appendDescription(description).toString());
+    }
+
+    @Test
+    void failedAppendLeavesBufferUnchanged() {
+        MidiBuffer buffer = new MidiBuffer();
+        buffer.appendPacked(PackedMidiMessage.pack(0xC0, 5), 1);
+        int byteSize = buffer.getByteSize();
+
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.append(new byte[]{(byte) 0x90, 60, 100}, 1, 3, 2));
+        assertEquals(1, buffer.getEventCount());
+        assertEquals(byteSize, buffer.getByteSize());
+
+        buffer.appendPacked(PackedMidiMessage.pack(0x90, 60, 100), 3);
+        MidiBuffer.Cursor cursor = buffer.cursor();
+        assertTrue(cursor.next());
+        assertTrue(cursor.next());
+        assertEquals(3, cursor.getTimeStamp());
+        assertEquals(0x90, cursor.getStatusByte());
+    }
+
+    @Test
+    void cursorByteIndexIsChecked() {
+        MidiBuffer buffer = new MidiBuffer();
+        buffer.appendPacked(PackedMidiMessage.pack(0xC0, 5), 0);
+        buffer.appendPacked(PackedMidiMessage.pack(0x90, 60, 100), 0);
+
+        MidiBuffer.Cursor cursor = buffer.cursor();
+        assertTrue(cursor.next());
+        assertEquals(5, cursor.getByte(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> cursor.getByte(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> cursor.getByte(-1));
+    }
+
+    @Test
+    void appendAll() {
+        MidiBuffer first = new MidiBuffer();
+        MidiBuffer second = new MidiBuffer(16, true);
+        first.appendPacked(PackedMidiMessage.noteOn(1, 60, 100), 1);
+        second.appendPacked(PackedMidiMessage.noteOff(1, 60, 0), 2);
+        second.appendPacked(PackedMidiMessage.noteOn(1, 62, 100), 3);
+
+        first.appendAll(second);
+        assertEquals(3, first.getEventCount());
+
+        MidiBuffer.Cursor cursor = first.cursor();
+        double expected = 1;
+        while (cursor.next()) {
+            assertEquals(expected++, cursor.getTimeStamp());
+        }
+        assertEquals(4, expected);
+        assertEquals(first.getByteSize(), first.asReadOnlyBuffer().remaining());
+    }
+
+    @Test
+    void directDataAddress() {
+        MidiBuffer buffer = new MidiBuffer(16, true);
+        buffer.appendPacked(PackedMidiMessage.pack(0x90, 60, 100), 0);
+
+        MidiBuffer.Cursor cursor = buffer.cursor();
+        assertTrue(cursor.next());
+        assertEquals(60, buffer.getDataAddress().getByte(cursor.getDataOffset() + 1));
+
+        assertThrows(MidiException.class, () -> new MidiBuffer().getDataAddress());
+    }
+
+    @Test
+    void invalidArguments() {
+        MidiBuffer buffer = new MidiBuffer();
+
+        assertThrows(MidiException.class, () -> new MidiBuffer(4, false));
+        assertThrows(NullPointerException.class, () -> buffer.append(null, 0, 3, 0));
+        assertThrows(MidiException.class, () -> buffer.append(new byte[3], 0, 0, 0));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MidiEventBatchTest {
+
+    private MidiEventBatch batch;
+
+    @BeforeEach
+    void init() {
+        batch = new MidiEventBatch(2);
+        batch.add(PackedMidiMessage.noteOn(1, 60, 100), 1);
+        batch.add(PackedMidiMessage.controllerEvent(2, 7, 90), 2);
+        batch.add(PackedMidiMessage.pack(0xF8), 3);
+        batch.add(PackedMidiMessage.noteOff(3, 125, 0), 4);
+        batch.add(new MidiMessage(new byte[]{(byte) 0x90, 2, 0}, 3, 5));
+    }
+
+    @Test
+    void filterChannels() {
+        assertEquals(2, batch.filterChannels(0x0001));
+        assertEquals(3, batch.size());
+        assertEquals(PackedMidiMessage.noteOn(1, 60, 100), batch.getMessage(0));
+        assertEquals(PackedMidiMessage.pack(0xF8), batch.getMessage(1));
+        assertEquals(5, batch.getTimeStamp(2));
+    }
+
+    @Test
+    void filterTypes() {
+        assertEquals(3, batch.filterTypes(EnumSet.of(MidiMessage.MessageType.NOTE_ON)));
+        assertEquals(2, batch.size());
+        assertEquals(1, batch.getTimeStamp(0));
+        assertEquals(5, batch.getTimeStamp(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.getMessage(2));
+    }
+
+    @Test
+    void transpose() {
+        batch.transpose(5);
+        assertEquals(PackedMidiMessage.noteOn(1, 65, 100), batch.getMessage(0));
+        assertEquals(PackedMidiMessage.controllerEvent(2, 7, 90), batch.getMessage(1));
+        assertEquals(PackedMidiMessage.noteOff(3, 127, 0), batch.getMessage(3));
+
+        batch.transpose(-10);
+        assertEquals(PackedMidiMessage.pack(0x90, 0, 0), batch.getMessage(4));
+    }
+
+    @Test
+    void scaleVelocity() {
+        batch.scaleVelocity(2);
+        assertEquals(127, PackedMidiMessage.getVelocity(batch.getMessage(0)));
+        assertEquals(0, PackedMidiMessage.getVelocity(batch.getMessage(4)));
+
+        batch.scaleVelocity(0.001F);
+        assertEquals(1, PackedMidiMessage.getVelocity(batch.getMessage(0)));
+        assertEquals(PackedMidiMessage.controllerEvent(2, 7, 90), batch.getMessage(1));
+    }
+
+    @Test
+    void remapChannels() {
+        int[] channelMap = new int[16];
+        for (int i = 0; i < 16; i++) {
+            channelMap[i] = 16 - i;
+        }
+
+        batch.remapChannels(channelMap);
+        assertEquals(16, PackedMidiMessage.getChannel(batch.getMessage(0)));
+        assertEquals(15, PackedMidiMessage.getChannel(batch.getMessage(1)));
+        assertEquals(PackedMidiMessage.pack(0xF8), batch.getMessage(2));
+
+        channelMap[0] = 17;
+        assertThrows(MidiException.class, () -> batch.remapChannels(channelMap));
+        assertThrows(MidiException.class, () -> batch.remapChannels(new int[4]));
+    }
+
+    @Test
+    void nonChannelEventsAreLeftAlone() {
+        // A running status note (data bytes only) isn't on any channel.
+        MidiEventBatch runningStatus = new MidiEventBatch(2);
+        runningStatus.add(PackedMidiMessage.pack(0x3C, 100), 1);
+        runningStatus.add(PackedMidiMessage.noteOn(2, 60, 100), 2);
+
+        int[] channelMap = new int[16];
+        Arrays.fill(channelMap, 5);
+        runningStatus.remapChannels(channelMap);
+        assertEquals(PackedMidiMessage.pack(0x3C, 100), runningStatus.getMessage(0));
+        assertEquals(5, PackedMidiMessage.getChannel(runningStatus.getMessage(1)));
+
+        assertEquals(1, runningStatus.filterChannels(0x0001));
+        assertEquals(PackedMidiMessage.pack(0x3C, 100), runningStatus.getMessage(0));
+    }
+
+    @Test
+    void counts() {
+        int[] perType = batch.countByType();
+        assertEquals(2, perType[MidiMessage.MessageType.NOTE_ON.ordinal()]);
+        assertEquals(1, perType[MidiMessage.MessageType.NOTE_OFF.ordinal()]);
+        assertEquals(1, perType[MidiMessage.MessageType.TIMING_CLOCK.ordinal()]);
+
+        int[] perChannel = batch.countByChannel();
+        assertArrayEquals(new int[]{2, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0}, perChannel);
+    }
+
+    @Test
+    void midiBufferConversions() {
+        MidiBuffer buffer = new MidiBuffer();
+        batch.copyTo(buffer);
+        buffer.append(new byte[]{(byte) 0xF0, 1, (byte) 0xF7}, 0, 3, 6);
+
+        MidiEventBatch copy = new MidiEventBatch(1);
+        assertEquals(1, copy.addAll(buffer));
+        assertEquals(batch.size(), copy.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(batch.getMessage(i), copy.getMessage(i));
+            assertEquals(batch.getTimeStamp(i), copy.getTimeStamp(i));
+        }
+
+        copy.clear();
+        assertEquals(0, copy.size());
+    }
+}
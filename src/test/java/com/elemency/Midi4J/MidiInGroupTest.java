@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MidiInGroupTest {
+
+    @Test
+    void mergesSourcesInArrivalOrder() throws InterruptedException {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        List<UUID> sources = new ArrayList<>();
+        List<Integer> notes = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(4);
+
+        // A long reorder window: nothing is delivered before all messages are queued.
+        try (MidiInGroup group = new MidiInGroup(8, TimeUnit.MILLISECONDS.toNanos(50), WaitStrategy.PARK,
+                (uuid, midiMessage, userData) -> {
+                    sources.add(uuid);
+                    notes.add(midiMessage.getNoteNumber());
+                    latch.countDown();
+                })) {
+
+            MidiIn.MessageSink firstSink = group.addSource(first);
+            MidiIn.MessageSink secondSink = group.addSource(second);
+            assertEquals(2, group.size());
+
+            // Explicit, distinct stamps: consecutive System.nanoTime() calls may tie on coarse clocks.
+            long start = System.nanoTime();
+            assertTrue(secondSink.offer(stamped(60, start)));
+            assertTrue(firstSink.offer(stamped(61, start + 1000)));
+            assertTrue(firstSink.offer(stamped(62, start + 2000)));
+            assertTrue(secondSink.offer(stamped(63, start + 3000)));
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(60, (int) notes.get(0));
+        assertEquals(61, (int) notes.get(1));
+        assertEquals(62, (int) notes.get(2));
+        assertEquals(63, (int) notes.get(3));
+        assertEquals(second, sources.get(0));
+        assertEquals(first, sources.get(1));
+    }
+
+    @Test
+    void fullSourceQueueDrops() throws InterruptedException {
+        try (MidiInGroup group = new MidiInGroup(2, TimeUnit.SECONDS.toNanos(10), WaitStrategy.PARK,
+                (uuid, midiMessage, userData) -> {
+                })) {
+
+            MidiIn.MessageSink sink = group.addSource(UUID.randomUUID());
+            assertTrue(sink.offer(new MidiMessage(0x90, 60, 100, 0)));
+            assertTrue(sink.offer(new MidiMessage(0x90, 61, 100, 0)));
+            assertFalse(sink.offer(new MidiMessage(0x90, 62, 100, 0)));
+            assertEquals(1, group.getDroppedCount());
+        }
+    }
+
+    @Test
+    void closedSourceLeavesGroup() {
+        try (MidiInGroup group = new MidiInGroup(4, TimeUnit.SECONDS.toNanos(10), WaitStrategy.PARK,
+                (uuid, midiMessage, userData) -> {
+                })) {
+
+            MidiIn.MessageSink kept = group.addSource(UUID.randomUUID());
+            MidiIn.MessageSink closed = group.addSource(UUID.randomUUID());
+
+            // One more than its queue holds: the reorder window keeps them all pending.
+            for (int note = 60; note < 65; note++) {
+                closed.offer(new MidiMessage(0x90, note, 100, 0));
+            }
+            assertEquals(1, group.getDroppedCount());
+
+            ((MidiInGroup.Input) closed).leaveGroup();
+            assertEquals(1, group.size());
+            assertEquals(1, group.getDroppedCount());
+            assertFalse(closed.offer(new MidiMessage(0x90, 60, 100, 0)));
+            assertTrue(kept.offer(new MidiMessage(0x90, 61, 100, 0)));
+        }
+    }
+
+    @Test
+    void closeFlushesPendingMessages() {
+        List<Integer> notes = new ArrayList<>();
+
+        MidiInGroup group = new MidiInGroup(4, TimeUnit.SECONDS.toNanos(10), WaitStrategy.PARK,
+                (uuid, midiMessage, userData) -> notes.add(midiMessage.getNoteNumber()));
+
+        MidiIn.MessageSink sink = group.addSource(UUID.randomUUID());
+        sink.offer(new MidiMessage(0x90, 60, 100, 0));
+        sink.offer(new MidiMessage(0x90, 61, 100, 0));
+        group.close();
+
+        assertEquals(2, notes.size());
+        assertThrows(MidiException.class, () -> new MidiInGroup(0, 0, WaitStrategy.PARK, (uuid, midiMessage, userData) -> {
+        }));
+    }
+
+    private static MidiMessage stamped(int noteNumber, long arrivalTime) {
+        MidiMessage midiMessage = new MidiMessage(0x90, noteNumber, 100, 0);
+        midiMessage.setArrivalTime(arrivalTime);
+        return midiMessage;
+    }
+}
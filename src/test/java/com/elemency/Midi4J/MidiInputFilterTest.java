@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import com.sun.jna.Memory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MidiInputFilterTest {
+
+    private final MidiInputFilter filter = new MidiInputFilter();
+
+    private boolean accept(int... bytes) {
+        byte[] data = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            data[i] = (byte) bytes[i];
+        }
+
+        boolean accepted = filter.accept(data, 0, data.length);
+
+        // Both the array and native versions must agree.
+        Memory nativeData = new Memory(data.length);
+        nativeData.write(0, data, 0, data.length);
+        assertEquals(accepted, filter.accept(nativeData, data.length));
+
+        return accepted;
+    }
+
+    @Test
+    void acceptsEverythingByDefault() {
+        assertTrue(accept(0x90, 60, 100));
+        assertTrue(accept(0xBF, 127, 1));
+        assertTrue(accept(0xF8));
+        assertTrue(accept(0xF0, 0x7E, 0xF7));
+        assertEquals(0xFFFF, filter.getChannelMask());
+    }
+
+    @ParameterizedTest()
+    @CsvSource({
+            "144, true",
+            "145, false",
+            "153, true",
+            "240, true",
+            "248, true"
+    })
+    void channelMask(int status, boolean expected) {
+        // Channels 1 and 10 only.
+        filter.setChannelMask(0x0201);
+        assertEquals(expected, accept(status, 60, 100));
+    }
+
+    @Test
+    void typeMask() {
+        filter.setTypes(EnumSet.of(MidiMessage.MessageType.NOTE_ON, MidiMessage.MessageType.NOTE_OFF));
+
+        assertTrue(accept(0x90, 60, 100));
+        assertTrue(accept(0x80, 60, 0));
+        assertFalse(accept(0xA0, 60, 30));
+        assertFalse(accept(0xD3, 30));
+        assertFalse(accept(0xF8));
+        assertEquals(2, filter.getTypes().size());
+    }
+
+    @Test
+    void controllerMask() {
+        filter.setAllControllersAccepted(false).setControllerAccepted(7, true).setControllerAccepted(120, true);
+
+        assertTrue(accept(0xB0, 7, 100));
+        assertTrue(accept(0xB5, 120, 0));
+        assertFalse(accept(0xB0, 1, 64));
+        assertFalse(accept(0xB0, 74, 64));
+        assertTrue(filter.isControllerAccepted(120));
+        assertFalse(filter.isControllerAccepted(121));
+
+        // Other types are unaffected.
+        assertTrue(accept(0x90, 1, 100));
+        assertThrows(MidiException.class, () -> filter.setControllerAccepted(128, true));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import com.sun.jna.Memory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MidiMessagePoolTest {
+
+    private final Memory nativeData = new Memory(8);
+    private MidiMessagePool pool;
+
+    @BeforeEach
+    void init() {
+        pool = new MidiMessagePool(4);
+        nativeData.write(0, new byte[]{(byte) 0x90, 60, 100}, 0, 3);
+    }
+
+    @Test
+    void acquireAndRecycle() {
+        MidiMessage msg = pool.acquire(nativeData, 3, 6);
+        assertTrue(msg.isPooled());
+        assertTrue(msg.isNoteOn(false));
+        assertEquals(60, msg.getNoteNumber());
+        assertEquals(6, msg.getTimeStamp());
+        assertEquals(0, pool.getIdleCount(3));
+
+        msg.release();
+        assertEquals(1, pool.getIdleCount(3));
+
+        // The same instance is handed out again.
+        nativeData.write(0, new byte[]{(byte) 0x80, 62, 0}, 0, 3);
+        MidiMessage recycled = pool.acquire(nativeData, 3, 9);
+        assertSame(msg, recycled);
+        assertTrue(recycled.isNoteOff(false));
+        assertEquals(62, recycled.getNoteNumber());
+        assertEquals(9, recycled.getTimeStamp());
+    }
+
+    @Test
+    void retainDelaysRecycling() {
+        MidiMessage msg = pool.acquire(nativeData, 3, 0);
+        msg.retain();
+        msg.retain();
+
+        msg.release();
+        msg.release();
+        assertEquals(0, pool.getIdleCount(3));
+
+        msg.release();
+        assertEquals(1, pool.getIdleCount(3));
+
+        assertThrows(MidiException.class, msg::release);
+    }
+
+    @Test
+    void longMessagesAreNotPooled() {
+        nativeData.write(0, new byte[]{(byte) 0xF0, 1, 2, 3, (byte) 0xF7}, 0, 5);
+        MidiMessage msg = pool.acquire(nativeData, 5, 0);
+        assertFalse(msg.isPooled());
+        assertTrue(msg.isSysEx());
+
+        msg.release();
+        assertEquals(0, pool.getIdleCount(3));
+    }
+
+    @Test
+    void withTimeStampDetachesFromPool() throws CloneNotSupportedException {
+        MidiMessage msg = pool.acquire(nativeData, 3, 0);
+        MidiMessage copy = msg.withTimeStamp(4);
+
+        assertFalse(copy.isPooled());
+        assertNotSame(msg.getMidiData(), copy.getMidiData());
+        assertArrayEquals(msg.getMidiData(), copy.getMidiData());
+    }
+
+    @Test
+    void recyclingClearsTheArrivalTime() throws CloneNotSupportedException {
+        MidiMessage msg = pool.acquire(nativeData, 3, 0);
+        msg.setArrivalTime(42);
+        assertEquals(42, msg.withTimeStamp(1).getArrivalTime());
+        msg.release();
+
+        MidiMessage recycled = pool.acquire(nativeData, 3, 0);
+        assertSame(msg, recycled);
+        assertEquals(0, recycled.getArrivalTime());
+    }
+
+    @Test
+    void releaseFromSeveralThreads() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    pool.acquire(nativeData, 3, 0).release();
+                }
+            });
+            threads[t].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int idle = pool.getIdleCount(3);
+        assertTrue(idle >= 1 && idle <= 4);
+    }
+
+    @Test
+    void invalidArguments() {
+        assertThrows(MidiException.class, () -> new MidiMessagePool(0));
+        assertThrows(MidiException.class, () -> pool.acquire(nativeData, 0, 0));
+        assertThrows(NullPointerException.class, () -> pool.acquire(null, 3, 0));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MidiMessageQueueTest {
+
+    @Test
+    void takeReturnsMessagesInOrder() throws InterruptedException {
+        MidiMessageQueue queue = new MidiMessageQueue(4);
+        assertTrue(queue.offer(new MidiMessage(0x90, 60, 100, 1)));
+        assertTrue(queue.offer(new MidiMessage(0x80, 60, 0, 2)));
+        assertEquals(2, queue.size());
+
+        assertTrue(queue.take().isNoteOn(false));
+        assertTrue(queue.take().isNoteOff(false));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void pollTimesOutWhenEmpty() throws InterruptedException {
+        MidiMessageQueue queue = new MidiMessageQueue(4);
+
+        long start = System.nanoTime();
+        assertNull(queue.poll(20, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertNull(queue.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void fullQueueDropsNewest() throws InterruptedException {
+        MidiMessageQueue queue = new MidiMessageQueue(1);
+        assertTrue(queue.offer(new MidiMessage(0x90, 60, 100, 0)));
+        assertFalse(queue.offer(new MidiMessage(0x90, 62, 100, 0)));
+        assertEquals(1, queue.getDroppedCount());
+
+        assertEquals(60, queue.poll(0, TimeUnit.MILLISECONDS).getNoteNumber());
+    }
+
+    @Test
+    void fullQueueGrowsUpToItsMaximum() {
+        MidiMessageQueue queue = new MidiMessageQueue(2, 5);
+
+        for (int note = 0; note < 6; note++) {
+            queue.offer(new MidiMessage(0x90, note, 100, 0));
+        }
+
+        assertEquals(5, queue.getCapacity());
+        assertEquals(5, queue.size());
+        assertEquals(5, queue.getHighWaterMark());
+        assertEquals(1, queue.getDroppedCount());
+        assertThrows(MidiException.class, () -> new MidiMessageQueue(4, 2));
+    }
+
+    @Test
+    void takeWakesUpOnOffer() throws InterruptedException {
+        MidiMessageQueue queue = new MidiMessageQueue(4);
+        AtomicReference<MidiMessage> taken = new AtomicReference<>();
+
+        Thread consumer = new Thread(() -> {
+            try {
+                taken.set(queue.take());
+            } catch (InterruptedException ignored) {
+            }
+        });
+        consumer.start();
+
+        queue.offer(new MidiMessage(0x90, 64, 100, 0));
+        consumer.join(5_000);
+
+        assertFalse(consumer.isAlive());
+        assertEquals(64, taken.get().getNoteNumber());
+    }
+
+    @Test
+    void closeWakesUpWaitingConsumers() throws InterruptedException {
+        MidiMessageQueue queue = new MidiMessageQueue(4);
+        AtomicReference<MidiMessage> taken = new AtomicReference<>(new MidiMessage(0x90, 60, 100, 0));
+
+        Thread consumer = new Thread(() -> {
+            try {
+                taken.set(queue.take());
+            } catch (InterruptedException ignored) {
+            }
+        });
+        consumer.start();
+
+        Thread.sleep(20);
+        queue.close();
+        consumer.join(5_000);
+
+        assertFalse(consumer.isAlive());
+        assertNull(taken.get());
+        assertFalse(queue.offer(new MidiMessage(0x90, 60, 100, 0)));
+    }
+}
@@ -21,6 +21,8 @@ import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
+import java.nio.CharBuffer;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class MidiMessageTest {
@@ -126,6 +128,7 @@ class MidiMessageTest {
     @CsvSource({
             "144, 3",
             "192, 2",
+            "241, 2",
             "248, 1",
             "240, -1",
             "247, -1",
@@ -135,6 +138,49 @@ class MidiMessageTest {
 
     }
 
+    @ParameterizedTest()
+    @CsvSource({
+            "0, DATA",
+            "127, DATA",
+            "128, NOTE_OFF",
+            "159, NOTE_ON",
+            "165, POLY_AFTERTOUCH",
+            "176, CONTROLLER",
+            "192, PROGRAM_CHANGE",
+            "208, CHANNEL_PRESSURE",
+            "239, PITCH_WHEEL",
+            "240, SYSEX",
+            "241, MIDI_TIME_CODE",
+            "242, SONG_POSITION",
+            "243, SONG_SELECT",
+            "244, UNDEFINED",
+            "247, END_OF_SYSEX",
+            "248, TIMING_CLOCK",
+            "250, START",
+            "252, STOP",
+            "254, ACTIVE_SENSING",
+            "255, RESET",
+    })
+    void classify(int byte0, MidiMessage.MessageType expected) {
+        assertEquals(expected, MidiMessage.classify(byte0));
+        assertEquals(expected, MidiMessage.classify((byte) byte0));
+    }
+
+    @Test
+    void classifyInstance() {
+        msg = MidiMessage.noteOn(1, 60, 0, 0);
+        assertEquals(MidiMessage.MessageType.NOTE_ON, msg.classify());
+        assertTrue(msg.classify().isChannelMessage());
+
+        msg = new MidiMessage(0xF8, 0);
+        assertEquals(MidiMessage.MessageType.TIMING_CLOCK, msg.classify());
+        assertTrue(msg.classify().isRealTime());
+        assertFalse(msg.classify().isChannelMessage());
+
+        assertEquals(MidiMessage.MessageType.CONTROLLER,
+                PackedMidiMessage.classify(PackedMidiMessage.controllerEvent(3, 7, 0)));
+    }
+
     @Test
     void getMidiNoteName() {
         assertEquals("C3", MidiMessage.getNoteName(60, true, true, 3));
@@ -194,6 +240,23 @@ class MidiMessageTest {
             assertThrows(MidiException.class, () -> MidiMessage.createSysExMessage(wellFormed, 0, 0), "Sysex byte array should throw a MidiException when size is < 1");
             assertThrows(NullPointerException.class, () -> MidiMessage.createSysExMessage(null, 6, 0), "Sysex byte array should throw a NullPointerException null");
         }
+
+        @Test
+        @DisplayName("View SysEx data without copying it")
+        void getSysExView()
+        {
+            msg = MidiMessage.createSysExMessage(sysexExpected, sysexExpected.length, 0);
+            SysExView view = msg.getSysExView();
+
+            assertEquals(sysexExpected.length, view.getLength());
+            assertEquals(msg.getSysExDataSize(), view.getPayloadSize());
+            assertEquals(61, view.getPayloadByte(0));
+            assertEquals(0xF7, view.getByte(view.getLength() - 1));
+            assertTrue(view.asReadOnlyBuffer().isReadOnly());
+
+            byte[] midiData = {(byte) 0x90, 60, 100};
+            assertNull(new MidiMessage(midiData, 3, 0).getSysExView(), "A non SysEx message has no SysEx view");
+        }
     }
 
     @Test
@@ -380,6 +443,33 @@ class MidiMessageTest {
         assertEquals("Status 0x9F(159), 0x3D(61), 0x7C(124)", msg.midiDataToHexString());
     }
 
+    @Test
+    void appendDescription() {
+        StringBuilder sb = new StringBuilder("> ");
+        msg = new MidiMessage(0x90, 60, 122, 0);
+        assertSame(sb, msg.appendDescription(sb));
+        assertEquals("> Note ON  C3   Velocity 122 Channel 01", sb.toString());
+
+        CharBuffer cb = CharBuffer.allocate(64);
+        msg = MidiMessage.pitchWheel(16, 1200, 0);
+        msg.appendDescription(cb).flip();
+        assertEquals("Pitchbend 01200 Channel 16", cb.toString());
+    }
+
+    @Test
+    void appendMidiDataHexString() {
+        final byte[] midiData = {(byte) 0x9F, 61, 5};
+        msg = new MidiMessage(midiData, 3, 6);
+
+        StringBuilder sb = new StringBuilder();
+        msg.appendMidiDataHexString(sb);
+        assertEquals("Status 0x9F(159), 0x3D(61), 0x5(05)", sb.toString());
+
+        CharBuffer cb = CharBuffer.allocate(64);
+        msg.appendMidiDataHexString(cb).flip();
+        assertEquals(sb.toString(), cb.toString());
+    }
+
     @Test
     void addToTimeStamp() {
         final byte[] midiData = {(byte) 0x9F, 61, 124};
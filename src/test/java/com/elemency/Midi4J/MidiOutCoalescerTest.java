@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MidiOutCoalescerTest {
+
+    private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+    private MidiOutCoalescer coalescer;
+
+    @BeforeEach
+    void init() {
+        // A long period: the tests flush explicitly.
+        coalescer = new MidiOutCoalescer((message, length) -> sent.add(hex(message, length)),
+                1, TimeUnit.HOURS, "coalescer-test");
+    }
+
+    @AfterEach
+    void close() {
+        coalescer.close();
+    }
+
+    @Test
+    void keepsLatestValuePerSlot() {
+        for (int value = 0; value < 100; value++) {
+            coalescer.sendMessage(new MidiMessage(0xB0, 1, value, 0));
+            coalescer.sendMessage(new MidiMessage(0xE0, 0, value, 0));
+        }
+        coalescer.sendMessage(new MidiMessage(0xB1, 1, 5, 0));
+        coalescer.sendMessage(new byte[]{(byte) 0xD0, 42}, 2);
+
+        assertTrue(sent.isEmpty());
+        assertEquals(4, coalescer.getPendingCount());
+        assertEquals(198, coalescer.getCoalescedCount());
+
+        coalescer.flush();
+
+        assertEquals(Arrays.asList("B00163", "E00063", "B10105", "D02A"), sent);
+        assertEquals(0, coalescer.getPendingCount());
+    }
+
+    @Test
+    void otherMessagesFlushPendingValuesFirst() {
+        coalescer.sendMessage(new MidiMessage(0xB0, 0, 1, 0));
+        coalescer.sendMessage(new MidiMessage(0xB0, 32, 2, 0));
+        coalescer.sendMessage(new byte[]{(byte) 0xC0, 10}, 2);
+        coalescer.sendMessage(new MidiMessage(0x90, 60, 100, 0));
+
+        assertEquals(Arrays.asList("B00001", "B02002", "C00A", "903C64"), sent);
+    }
+
+    @Test
+    void fourteenBitPairsAreCoalescedAsOneUnit() {
+        // A new MSB resets the LSB on the receiver: the pending LSB is superseded too.
+        coalescer.sendMessage(new MidiMessage(0xB0, 1, 10, 0));
+        coalescer.sendMessage(new MidiMessage(0xB0, 33, 20, 0));
+        coalescer.sendMessage(new MidiMessage(0xB0, 1, 30, 0));
+        assertEquals(1, coalescer.getPendingCount());
+        assertEquals(2, coalescer.getCoalescedCount());
+        coalescer.flush();
+        assertEquals(Collections.singletonList("B0011E"), sent);
+
+        // The MSB always leaves before the LSB, whatever the order they were first changed in.
+        sent.clear();
+        coalescer.sendMessage(new MidiMessage(0xB0, 39, 1, 0));
+        coalescer.sendMessage(new MidiMessage(0xB0, 7, 100, 0));
+        coalescer.sendMessage(new MidiMessage(0xB0, 39, 2, 0));
+        coalescer.flush();
+        assertEquals(Arrays.asList("B00764", "B02702"), sent);
+
+        // A lone LSB is sent on its own.
+        sent.clear();
+        coalescer.sendMessage(new MidiMessage(0xB0, 33, 5, 0));
+        coalescer.flush();
+        assertEquals(Collections.singletonList("B02105"), sent);
+    }
+
+    @Test
+    void orderSensitiveControllersAreNotCoalesced() {
+        coalescer.sendMessage(new MidiMessage(0xB0, 101, 0, 0));
+        coalescer.sendMessage(new MidiMessage(0xB0, 100, 0, 0));
+        coalescer.sendMessage(new MidiMessage(0xB0, 6, 2, 0));
+        coalescer.sendMessage(new MidiMessage(0xB0, 123, 0, 0));
+
+        assertEquals(Arrays.asList("B06500", "B06400", "B00602", "B07B00"), sent);
+        assertEquals(0, coalescer.getPendingCount());
+    }
+
+    @Test
+    void flushesPeriodicallyAndOnClose() throws InterruptedException {
+        CountDownLatch flushed = new CountDownLatch(1);
+
+        MidiOutCoalescer periodic = new MidiOutCoalescer((message, length) -> flushed.countDown(),
+                5, TimeUnit.MILLISECONDS, "coalescer-test");
+        periodic.sendMessage(new MidiMessage(0xB0, 7, 100, 0));
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        periodic.close();
+
+        coalescer.sendMessage(new MidiMessage(0xB0, 7, 100, 0));
+        coalescer.close();
+        assertEquals(Collections.singletonList("B00764"), sent);
+
+        // Once closed, controllers are no longer held back.
+        coalescer.sendMessage(new MidiMessage(0xB0, 7, 90, 0));
+        assertEquals(Arrays.asList("B00764", "B0075A"), sent);
+
+        assertThrows(MidiException.class, () -> new MidiOutCoalescer((message, length) -> {
+        }, 0, TimeUnit.MILLISECONDS, "coalescer-test"));
+    }
+
+    private static String hex(byte[] message, int length) {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < length; i++) {
+            sb.append(String.format("%02X", message[i] & 0xFF));
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MidiOutSchedulerTest {
+
+    @Test
+    void sendsInTimeOrderNotBefore() throws InterruptedException {
+        List<Integer> notes = Collections.synchronizedList(new ArrayList<>());
+        List<Long> lateness = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(4);
+        long start = System.nanoTime();
+        long[] due = new long[128];
+
+        MidiOutScheduler scheduler = new MidiOutScheduler(midiMessage -> {
+            lateness.add(System.nanoTime() - due[midiMessage.getNoteNumber()]);
+            notes.add(midiMessage.getNoteNumber());
+            latch.countDown();
+        }, MidiOutScheduler.DEFAULT_SPIN_NANOS, "scheduler-test");
+
+        try {
+            int[] order = {63, 61, 60, 62};
+            long[] delays = {40, 20, 10, 30};
+
+            for (int i = 0; i < order.length; i++) {
+                due[order[i]] = start + TimeUnit.MILLISECONDS.toNanos(delays[i]);
+                scheduler.schedule(new MidiMessage(0x90, order[i], 100, 0), due[order[i]]);
+            }
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            scheduler.stop();
+        }
+
+        assertEquals(60, (int) notes.get(0));
+        assertEquals(61, (int) notes.get(1));
+        assertEquals(62, (int) notes.get(2));
+        assertEquals(63, (int) notes.get(3));
+
+        for (long late : lateness) {
+            assertTrue(late >= 0);
+        }
+    }
+
+    @Test
+    void sameTimeKeepsSchedulingOrder() throws InterruptedException {
+        List<Integer> notes = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(3);
+
+        MidiOutScheduler scheduler = new MidiOutScheduler(midiMessage -> {
+            notes.add(midiMessage.getNoteNumber());
+            latch.countDown();
+        }, MidiOutScheduler.DEFAULT_SPIN_NANOS, "scheduler-test");
+
+        try {
+            long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+            scheduler.schedule(new MidiMessage(0x90, 64, 100, 0), due);
+            scheduler.schedule(new MidiMessage(0x90, 60, 100, 0), due);
+            scheduler.schedule(new MidiMessage(0x90, 67, 100, 0), due);
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            scheduler.stop();
+        }
+
+        assertEquals(64, (int) notes.get(0));
+        assertEquals(60, (int) notes.get(1));
+        assertEquals(67, (int) notes.get(2));
+    }
+
+    @Test
+    void earlierMessageScheduledDuringSpinGoesFirst() throws InterruptedException {
+        List<Integer> notes = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(2);
+
+        // A spin threshold long enough for the first message to be taken before the second is scheduled.
+        MidiOutScheduler scheduler = new MidiOutScheduler(midiMessage -> {
+            notes.add(midiMessage.getNoteNumber());
+            latch.countDown();
+        }, TimeUnit.MILLISECONDS.toNanos(500), "scheduler-test");
+
+        try {
+            long start = System.nanoTime();
+            scheduler.schedule(new MidiMessage(0x90, 61, 100, 0), start + TimeUnit.MILLISECONDS.toNanos(100));
+            Thread.sleep(20);
+            scheduler.schedule(new MidiMessage(0x90, 60, 100, 0), start + TimeUnit.MILLISECONDS.toNanos(50));
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            scheduler.stop();
+        }
+
+        assertEquals(60, (int) notes.get(0));
+        assertEquals(61, (int) notes.get(1));
+    }
+
+    @Test
+    void cancelReachesSpinningMessage() throws InterruptedException {
+        MidiOutScheduler scheduler = new MidiOutScheduler(midiMessage -> fail("Nothing should be sent"),
+                TimeUnit.MILLISECONDS.toNanos(500), "scheduler-test");
+
+        try {
+            scheduler.schedule(new MidiMessage(0x90, 60, 100, 0), System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100));
+            Thread.sleep(20);
+
+            assertEquals(1, scheduler.cancelAll());
+            Thread.sleep(150);
+            assertEquals(0, scheduler.getPendingCount());
+        } finally {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    void interruptedSchedulerRefusesMessages() throws InterruptedException {
+        MidiOutScheduler scheduler = new MidiOutScheduler(midiMessage -> fail("Nothing should be sent"),
+                MidiOutScheduler.DEFAULT_SPIN_NANOS, "scheduler-interrupt-test");
+
+        long later = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        scheduler.schedule(new MidiMessage(0x90, 60, 100, 0), later);
+
+        Thread thread = null;
+        for (Thread candidate : Thread.getAllStackTraces().keySet()) {
+            if (candidate.getName().equals("scheduler-interrupt-test")) {
+                thread = candidate;
+            }
+        }
+
+        assertNotNull(thread);
+        thread.interrupt();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+
+        assertEquals(0, scheduler.getPendingCount());
+        assertThrows(MidiException.class, () -> scheduler.schedule(new MidiMessage(0x90, 60, 100, 0), later));
+    }
+
+    @Test
+    void cancelAndStop() {
+        MidiOutScheduler scheduler = new MidiOutScheduler(midiMessage -> fail("Nothing should be sent"),
+                MidiOutScheduler.DEFAULT_SPIN_NANOS, "scheduler-test");
+
+        long later = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        scheduler.schedule(new MidiMessage(0x90, 60, 100, 0), later);
+        scheduler.schedule(new MidiMessage(0x90, 62, 100, 0), later);
+        assertEquals(2, scheduler.getPendingCount());
+
+        assertEquals(2, scheduler.cancelAll());
+        assertEquals(0, scheduler.getPendingCount());
+
+        scheduler.stop();
+        assertThrows(MidiException.class, () -> scheduler.schedule(new MidiMessage(0x90, 60, 100, 0), later));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MidiStreamParserTest {
+
+    private final List<Integer> shortMessages = new ArrayList<>();
+    private final List<byte[]> sysExMessages = new ArrayList<>();
+    private MidiStreamParser parser;
+
+    @BeforeEach
+    void init() {
+        shortMessages.clear();
+        sysExMessages.clear();
+        parser = new MidiStreamParser(new MidiStreamParser.MidiStreamListener() {
+            @Override
+            public void receiveShortMessage(int packed, double timeStamp) {
+                shortMessages.add(packed);
+            }
+
+            @Override
+            public void receiveSysEx(SysExView sysEx, double timeStamp) {
+                byte[] copy = new byte[sysEx.getLength()];
+                sysEx.copyTo(copy, 0);
+                sysExMessages.add(copy);
+            }
+        });
+    }
+
+    private void parse(int... bytes) {
+        byte[] chunk = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            chunk[i] = (byte) bytes[i];
+        }
+
+        parser.parse(chunk, 0, chunk.length, 0);
+    }
+
+    @Test
+    void runningStatus() {
+        parse(0x90, 60, 100, 62, 100, 60, 0);
+        parse(0xC1, 5, 6);
+
+        assertEquals(5, shortMessages.size());
+        assertEquals(PackedMidiMessage.noteOn(1, 60, 100), (int) shortMessages.get(0));
+        assertEquals(PackedMidiMessage.noteOn(1, 62, 100), (int) shortMessages.get(1));
+        assertEquals(PackedMidiMessage.pack(0x90, 60, 0), (int) shortMessages.get(2));
+        assertEquals(PackedMidiMessage.programChange(2, 5), (int) shortMessages.get(3));
+        assertEquals(PackedMidiMessage.programChange(2, 6), (int) shortMessages.get(4));
+    }
+
+    @Test
+    void messagesSpanChunks() {
+        parse(0xB0, 7);
+        assertTrue(shortMessages.isEmpty());
+
+        parser.parse(ByteBuffer.wrap(new byte[]{100}), 0);
+        assertEquals(PackedMidiMessage.controllerEvent(1, 7, 100), (int) shortMessages.get(0));
+    }
+
+    @Test
+    void realTimeBytesAreInterleaved() {
+        parse(0x90, 0xF8, 60, 0xFA, 100);
+
+        assertEquals(3, shortMessages.size());
+        assertEquals(PackedMidiMessage.pack(0xF8), (int) shortMessages.get(0));
+        assertEquals(PackedMidiMessage.pack(0xFA), (int) shortMessages.get(1));
+        assertEquals(PackedMidiMessage.noteOn(1, 60, 100), (int) shortMessages.get(2));
+    }
+
+    @Test
+    void systemCommonCancelsRunningStatus() {
+        parse(0x90, 60, 100, 0xF1, 0x25, 62, 100, 0xF6);
+
+        assertEquals(3, shortMessages.size());
+        assertEquals(PackedMidiMessage.pack(0xF1, 0x25), (int) shortMessages.get(1));
+        assertEquals(PackedMidiMessage.pack(0xF6), (int) shortMessages.get(2));
+        assertEquals(2, parser.getDiscardedByteCount());
+    }
+
+    @Test
+    void sysExSpansChunks() {
+        parse(0x90, 60, 100, 0xF0, 1, 2);
+        parse(3, 0xF8, 4);
+        parse(0xF7, 60, 0);
+
+        assertEquals(1, sysExMessages.size());
+        assertArrayEquals(new byte[]{(byte) 0xF0, 1, 2, 3, 4, (byte) 0xF7}, sysExMessages.get(0));
+
+        // The real-time byte goes through, running status doesn't survive the SysEx.
+        assertEquals(2, shortMessages.size());
+        assertEquals(PackedMidiMessage.pack(0xF8), (int) shortMessages.get(1));
+        assertEquals(2, parser.getDiscardedByteCount());
+    }
+
+    @Test
+    void statusByteAbortsSysEx() {
+        parse(0xF0, 1, 2, 0x80, 60, 0);
+
+        assertTrue(sysExMessages.isEmpty());
+        assertEquals(1, parser.getDroppedSysExCount());
+        assertEquals(PackedMidiMessage.noteOff(1, 60, 0), (int) shortMessages.get(0));
+    }
+
+    @Test
+    void parseIntoMidiBuffer() {
+        MidiBuffer buffer = new MidiBuffer();
+        MidiStreamParser bufferParser = new MidiStreamParser(buffer);
+        byte[] stream = {(byte) 0x90, 60, 100, 62, 100, (byte) 0xF0, 1, (byte) 0xF7};
+
+        bufferParser.parse(stream, 0, stream.length, 5);
+        assertEquals(3, buffer.getEventCount());
+
+        MidiBuffer.Cursor cursor = buffer.cursor();
+        cursor.next();
+        cursor.next();
+        assertEquals(62, cursor.getByte(1));
+        cursor.next();
+        assertEquals(3, cursor.getSize());
+        assertEquals(5, cursor.getTimeStamp());
+    }
+
+    @Test
+    void resetForgetsRunningStatus() {
+        parse(0x90, 60);
+        parser.reset();
+        parse(100);
+
+        assertTrue(shortMessages.isEmpty());
+        assertEquals(1, parser.getDiscardedByteCount());
+    }
+}
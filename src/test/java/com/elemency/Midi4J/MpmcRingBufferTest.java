@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MpmcRingBufferTest {
+
+    @Test
+    void capacityIsRoundedUp() {
+        assertEquals(2, new MpmcRingBuffer<Integer>(1).capacity());
+        assertEquals(8, new MpmcRingBuffer<Integer>(5).capacity());
+        assertThrows(MidiException.class, () -> new MpmcRingBuffer<Integer>(0));
+    }
+
+    @Test
+    void offerAndPollInOrderUntilFull() {
+        MpmcRingBuffer<Integer> ring = new MpmcRingBuffer<>(4);
+        assertNull(ring.poll());
+
+        int next = 0;
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(ring.offer(round * 4 + i));
+            }
+            assertFalse(ring.offer(-1));
+            assertEquals(4, ring.size());
+
+            for (int i = 0; i < 4; i++) {
+                assertEquals(next++, (int) ring.poll());
+            }
+            assertTrue(ring.isEmpty());
+        }
+
+        assertThrows(NullPointerException.class, () -> ring.offer(null));
+    }
+
+    @Test
+    void concurrentProducersAndConsumers() throws InterruptedException {
+        final int producers = 3;
+        final int consumers = 2;
+        final int perProducer = 100_000;
+
+        MpmcRingBuffer<Integer> ring = new MpmcRingBuffer<>(64);
+        AtomicLong sum = new AtomicLong();
+        AtomicLong count = new AtomicLong();
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(consumers);
+
+        for (int p = 0; p < producers; p++) {
+            threads.add(new Thread(() -> {
+                for (int i = 1; i <= perProducer; i++) {
+                    while (!ring.offer(i)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+
+        for (int c = 0; c < consumers; c++) {
+            threads.add(new Thread(() -> {
+                while (count.get() < (long) producers * perProducer) {
+                    Integer value = ring.poll();
+                    if (value == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    sum.addAndGet(value);
+                    count.incrementAndGet();
+                }
+                done.countDown();
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+
+        assertEquals((long) producers * perProducer, count.get());
+        assertEquals((long) producers * perProducer * (perProducer + 1) / 2, sum.get());
+        assertTrue(ring.isEmpty());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedMidiMessageTest {
+
+    @Test
+    void packNoteOn() {
+        int packed = PackedMidiMessage.noteOn(16, 61, 124);
+        assertEquals(3, PackedMidiMessage.getSize(packed));
+        assertEquals(0x9F, PackedMidiMessage.getStatusByte(packed));
+        assertEquals(16, PackedMidiMessage.getChannel(packed));
+        assertEquals(61, PackedMidiMessage.getNoteNumber(packed));
+        assertEquals(124, PackedMidiMessage.getVelocity(packed));
+        assertTrue(PackedMidiMessage.isNoteOn(packed, false));
+        assertTrue(PackedMidiMessage.isNoteOnOrOff(packed));
+        assertFalse(PackedMidiMessage.isNoteOff(packed, true));
+    }
+
+    @Test
+    void noteOnWithVelocity0IsNoteOff() {
+        int packed = PackedMidiMessage.noteOn(1, 60, 0);
+        assertFalse(PackedMidiMessage.isNoteOn(packed, false));
+        assertTrue(PackedMidiMessage.isNoteOn(packed, true));
+        assertTrue(PackedMidiMessage.isNoteOff(packed, true));
+        assertFalse(PackedMidiMessage.isNoteOff(packed, false));
+    }
+
+    @Test
+    void packController() {
+        int packed = PackedMidiMessage.controllerEvent(2, 7, 120);
+        assertEquals(0xB1, PackedMidiMessage.getStatusByte(packed));
+        assertEquals(2, PackedMidiMessage.getChannel(packed));
+        assertEquals(7, PackedMidiMessage.getControllerNumber(packed));
+        assertEquals(120, PackedMidiMessage.getControllerValue(packed));
+        assertTrue(PackedMidiMessage.isControllerOfType(packed, 7));
+        assertEquals(0, PackedMidiMessage.getVelocity(packed));
+    }
+
+    @Test
+    void packTwoBytesMessages() {
+        int packed = PackedMidiMessage.programChange(2, 34);
+        assertEquals(2, PackedMidiMessage.getSize(packed));
+        assertTrue(PackedMidiMessage.isProgramChange(packed));
+        assertEquals(34, PackedMidiMessage.getProgramChangeNumber(packed));
+
+        packed = PackedMidiMessage.channelPressureChange(2, 69);
+        assertTrue(PackedMidiMessage.isChannelPressure(packed));
+        assertEquals(69, PackedMidiMessage.getChannelPressureValue(packed));
+    }
+
+    @Test
+    void packPitchWheelAndAftertouch() {
+        int packed = PackedMidiMessage.pitchWheel(2, 1200);
+        assertTrue(PackedMidiMessage.isPitchWheel(packed));
+        assertEquals(1200, PackedMidiMessage.getPitchWheelValue(packed));
+
+        packed = PackedMidiMessage.aftertouchChange(2, 69, 120);
+        assertTrue(PackedMidiMessage.isPolyAftertouch(packed));
+        assertEquals(69, PackedMidiMessage.getNoteNumber(packed));
+        assertEquals(120, PackedMidiMessage.getPolyAftertouchValue(packed));
+    }
+
+    @Test
+    void packSystemMessage() {
+        int packed = PackedMidiMessage.pack(0xF8);
+        assertEquals(1, PackedMidiMessage.getSize(packed));
+        assertEquals(0, PackedMidiMessage.getChannel(packed));
+        assertTrue(PackedMidiMessage.isSystemMessage(packed));
+    }
+
+    @Test
+    void transformations() {
+        int packed = PackedMidiMessage.noteOn(1, 60, 100);
+
+        packed = PackedMidiMessage.withChannel(packed, 10);
+        packed = PackedMidiMessage.withNoteNumber(packed, 64);
+        packed = PackedMidiMessage.withVelocity(packed, 90);
+
+        assertEquals(10, PackedMidiMessage.getChannel(packed));
+        assertEquals(64, PackedMidiMessage.getNoteNumber(packed));
+        assertEquals(90, PackedMidiMessage.getVelocity(packed));
+        assertEquals(3, PackedMidiMessage.getSize(packed));
+
+        assertThrows(MidiException.class, () -> PackedMidiMessage.withChannel(0, 17));
+    }
+
+    @ParameterizedTest()
+    @CsvSource({
+            "144, 60, 122",
+            "176, 7, 100",
+            "239, 0, 64",
+    })
+    void midiMessageRoundTrip(int byte0, int byte1, int byte2) {
+        MidiMessage msg = new MidiMessage(byte0, byte1, byte2, 6);
+        int packed = PackedMidiMessage.fromMidiMessage(msg);
+
+        MidiMessage result = PackedMidiMessage.toMidiMessage(packed, 6);
+        assertArrayEquals(msg.getMidiData(), result.getMidiData());
+        assertEquals(msg.getMidiDataSize(), result.getMidiDataSize());
+        assertEquals(6, result.getTimeStamp());
+    }
+
+    @Test
+    void packFromByteArray() {
+        final byte[] midiData = {0, (byte) 0xC3, 12};
+        int packed = PackedMidiMessage.pack(midiData, 1, 2);
+        assertEquals(0xC3, PackedMidiMessage.getStatusByte(packed));
+        assertEquals(12, PackedMidiMessage.getProgramChangeNumber(packed));
+
+        byte[] dest = new byte[3];
+        assertEquals(2, PackedMidiMessage.writeTo(packed, dest, 1));
+        assertEquals((byte) 0xC3, dest[1]);
+        assertEquals(12, dest[2]);
+
+        assertThrows(MidiException.class, () -> PackedMidiMessage.pack(new byte[4], 0, 4));
+        assertThrows(NullPointerException.class, () -> PackedMidiMessage.pack(null, 0, 3));
+    }
+
+    @Test
+    void canPack() {
+        assertTrue(PackedMidiMessage.canPack(0x90, 3));
+        assertFalse(PackedMidiMessage.canPack(0xF0, 3));
+        assertFalse(PackedMidiMessage.canPack(0x90, 6));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunningStatusEncoderTest {
+
+    private final RunningStatusEncoder encoder = new RunningStatusEncoder();
+
+    @Test
+    void repeatedStatusIsLeftOut() {
+        byte[] dest = new byte[16];
+        int length = 0;
+
+        length += encoder.encode(PackedMidiMessage.controllerEvent(1, 7, 100), dest, length);
+        length += encoder.encode(PackedMidiMessage.controllerEvent(1, 7, 101), dest, length);
+        length += encoder.encode(PackedMidiMessage.pack(0xF8), dest, length);
+        length += encoder.encode(PackedMidiMessage.controllerEvent(1, 7, 102), dest, length);
+        length += encoder.encode(PackedMidiMessage.controllerEvent(2, 7, 103), dest, length);
+
+        assertEquals(11, length);
+        assertArrayEquals(new byte[]{(byte) 0xB0, 7, 100, 7, 101, (byte) 0xF8, 7, 102, (byte) 0xB1, 7, 103},
+                Arrays.copyOf(dest, length));
+        assertEquals(0xB1, encoder.getRunningStatus());
+    }
+
+    @Test
+    void systemMessagesCancelRunningStatus() {
+        ByteBuffer dest = ByteBuffer.allocate(32);
+        byte[] sysEx = {(byte) 0xF0, 1, 2, (byte) 0xF7};
+
+        assertEquals(3, encoder.encode(new MidiMessage(new byte[]{(byte) 0x90, 60, 100}, 3, 0), dest));
+        assertEquals(4, encoder.encode(new MidiMessage(sysEx, 4, 0), dest));
+        assertEquals(0, encoder.getRunningStatus());
+        assertEquals(3, encoder.encode(new MidiMessage(new byte[]{(byte) 0x90, 62, 100}, 3, 0), dest));
+        assertEquals(2, encoder.encode(new MidiMessage(new byte[]{(byte) 0x90, 64, 100}, 3, 0), dest));
+
+        encoder.reset();
+        assertEquals(3, encoder.encode(PackedMidiMessage.noteOn(1, 60, 0), dest));
+    }
+
+    @Test
+    void roundTrip() {
+        MidiBuffer source = new MidiBuffer();
+        for (int i = 0; i < 30; i++) {
+            source.appendPacked(PackedMidiMessage.controllerEvent(1, 1, i), 0);
+        }
+        source.appendPacked(PackedMidiMessage.pitchWheel(3, 8192), 0);
+        source.append(new byte[]{(byte) 0xF0, 1, 2, (byte) 0xF7}, 0, 4, 0);
+        source.appendPacked(PackedMidiMessage.pitchWheel(3, 100), 0);
+
+        ByteBuffer stream = ByteBuffer.allocate(source.getByteSize());
+        int length = encoder.encode(source, stream);
+
+        // 32 3-byte messages + 4 bytes of SysEx: 29 status bytes left out.
+        assertEquals(3 * 32 + 4 - 29, length);
+
+        MidiBuffer decoded = new MidiBuffer();
+        RunningStatusEncoder.decode(stream.array(), 0, length, decoded, 0);
+        assertEquals(source.getEventCount(), decoded.getEventCount());
+
+        MidiBuffer.Cursor expected = source.cursor();
+        MidiBuffer.Cursor actual = decoded.cursor();
+        while (expected.next()) {
+            assertTrue(actual.next());
+            assertEquals(expected.getSize(), actual.getSize());
+            for (int i = 0; i < expected.getSize(); i++) {
+                assertEquals(expected.getByte(i), actual.getByte(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpscRingBufferTest {
+
+    @Test
+    void capacityIsRoundedUp() {
+        assertEquals(1, new SpscRingBuffer<Integer>(1).capacity());
+        assertEquals(8, new SpscRingBuffer<Integer>(5).capacity());
+        assertEquals(16, new SpscRingBuffer<Integer>(16).capacity());
+        assertThrows(MidiException.class, () -> new SpscRingBuffer<Integer>(0));
+    }
+
+    @Test
+    void offerAndPollInOrderAcrossWrapAround() {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(4);
+        assertTrue(ring.isEmpty());
+        assertNull(ring.poll());
+
+        int next = 0;
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(ring.offer(round * 3 + i));
+            }
+            assertEquals(3, ring.size());
+
+            for (int i = 0; i < 3; i++) {
+                assertEquals(next++, (int) ring.poll());
+            }
+            assertTrue(ring.isEmpty());
+        }
+    }
+
+    @Test
+    void offerFailsWhenFull() {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(2);
+        assertTrue(ring.offer(1));
+        assertTrue(ring.offer(2));
+        assertFalse(ring.offer(3));
+
+        assertEquals(1, (int) ring.poll());
+        assertTrue(ring.offer(3));
+        assertEquals(2, (int) ring.poll());
+        assertEquals(3, (int) ring.poll());
+        assertThrows(NullPointerException.class, () -> ring.offer(null));
+    }
+
+    @Test
+    void concurrentHandOffKeepsOrder() throws InterruptedException {
+        final int count = 200_000;
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(64);
+        int[] received = new int[1];
+        boolean[] ordered = {true};
+
+        Thread consumer = new Thread(() -> {
+            int expected = 0;
+            while (expected < count) {
+                Integer value = ring.poll();
+                if (value == null) {
+                    Thread.yield();
+                    continue;
+                }
+                ordered[0] &= value == expected;
+                expected++;
+            }
+            received[0] = expected;
+        });
+        consumer.start();
+
+        for (int i = 0; i < count; i++) {
+            while (!ring.offer(i)) {
+                Thread.yield();
+            }
+        }
+
+        consumer.join(10_000);
+        assertEquals(count, received[0]);
+        assertTrue(ordered[0]);
+    }
+
+    @Test
+    void ringDispatcherDeliversToListeners() throws InterruptedException {
+        UUID uuid = UUID.randomUUID();
+        List<Integer> notes = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+
+        Broadcaster.BroadcastListener listener = (UUID source, MidiMessage midiMessage, Pointer userData) -> {
+            if (uuid.equals(source)) {
+                notes.add(midiMessage.getNoteNumber());
+                latch.countDown();
+            }
+        };
+        Broadcaster.register(listener);
+
+        RingDispatcher dispatcher = new RingDispatcher(uuid, 8, WaitStrategy.PARK, "ring-test");
+        try {
+            for (int note = 60; note < 63; note++) {
+                assertTrue(dispatcher.offer(new MidiMessage(0x90, note, 100, 0)));
+            }
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            dispatcher.stop();
+            Broadcaster.unregister(listener);
+        }
+
+        assertEquals(3, notes.size());
+        assertEquals(60, (int) notes.get(0));
+        assertEquals(62, (int) notes.get(2));
+        assertEquals(0, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    void ringDispatcherReleasesMessagesOfferedOnceStopped() {
+        RingDispatcher dispatcher = new RingDispatcher(UUID.randomUUID(), 8, WaitStrategy.PARK, "ring-test");
+        dispatcher.stop();
+
+        MidiMessagePool pool = new MidiMessagePool(4);
+        Memory nativeData = new Memory(3);
+        nativeData.write(0, new byte[]{(byte) 0x90, 60, 100}, 0, 3);
+        MidiMessage late = pool.acquire(nativeData, 3, 0);
+        int idle = pool.getIdleCount(3);
+
+        // Back to the pool rather than left in a ring nobody drains.
+        assertFalse(dispatcher.offer(late));
+        assertEquals(idle + 1, pool.getIdleCount(3));
+        assertEquals(0, dispatcher.getPendingCount());
+        assertEquals(1, dispatcher.getDroppedCount());
+    }
+}
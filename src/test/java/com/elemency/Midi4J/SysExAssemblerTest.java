@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2020 - eLeMenCy, All Rights Reserved
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package com.elemency.Midi4J;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SysExAssemblerTest {
+
+    private final List<byte[]> received = new ArrayList<>();
+    private final List<Double> timeStamps = new ArrayList<>();
+    private SysExAssembler assembler;
+
+    @BeforeEach
+    void init() {
+        received.clear();
+        timeStamps.clear();
+        assembler = new SysExAssembler(4, 64, (sysEx, timeStamp) -> {
+            byte[] copy = new byte[sysEx.getLength()];
+            sysEx.copyTo(copy, 0);
+            received.add(copy);
+            timeStamps.add(timeStamp);
+        });
+    }
+
+    @Test
+    void assembleFragments() {
+        assembler.feed(new byte[]{(byte) 0xF0, 1, 2}, 0, 3, 1);
+        assertTrue(assembler.isInProgress());
+        assembler.feed(new byte[]{3, (byte) 0xF8, 4, 5}, 0, 4, 2);
+        assembler.feed(ByteBuffer.wrap(new byte[]{6, (byte) 0xF7}), 3);
+
+        assertFalse(assembler.isInProgress());
+        assertEquals(1, received.size());
+        assertArrayEquals(new byte[]{(byte) 0xF0, 1, 2, 3, 4, 5, 6, (byte) 0xF7}, received.get(0));
+        assertEquals(1, (double) timeStamps.get(0));
+        assertTrue(assembler.getCapacity() >= 8);
+    }
+
+    @Test
+    void bytesOutsideSysExAreIgnored() {
+        assembler.feed(new MidiMessage(new byte[]{(byte) 0x90, 60, 100}, 3, 0));
+        assembler.feed(new MidiMessage(new byte[]{(byte) 0xF0, 9, (byte) 0xF7}, 3, 4));
+
+        assertEquals(1, received.size());
+        assertArrayEquals(new byte[]{(byte) 0xF0, 9, (byte) 0xF7}, received.get(0));
+        assertEquals(0, assembler.getDroppedCount());
+    }
+
+    @Test
+    void statusByteAbortsSysEx() {
+        assembler.feed(new byte[]{(byte) 0xF0, 1, 2, (byte) 0x90, 3, (byte) 0xF7}, 0, 6, 0);
+        assertTrue(received.isEmpty());
+        assertEquals(1, assembler.getDroppedCount());
+
+        assembler.feed(new byte[]{(byte) 0xF0, 1, (byte) 0xF0, 2, (byte) 0xF7}, 0, 5, 0);
+        assertEquals(1, received.size());
+        assertArrayEquals(new byte[]{(byte) 0xF0, 2, (byte) 0xF7}, received.get(0));
+        assertEquals(2, assembler.getDroppedCount());
+    }
+
+    @Test
+    void oversizedSysExIsDropped() {
+        byte[] dump = new byte[100];
+        dump[0] = (byte) 0xF0;
+        dump[99] = (byte) 0xF7;
+
+        assembler.feed(dump, 0, dump.length, 0);
+        assertTrue(received.isEmpty());
+        assertEquals(1, assembler.getDroppedCount());
+        assertEquals(64, assembler.getCapacity());
+
+        assembler.feed(new byte[]{(byte) 0xF0, 7, (byte) 0xF7}, 0, 3, 0);
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    void invalidArguments() {
+        assertThrows(NullPointerException.class, () -> new SysExAssembler(4, 64, null));
+        assertThrows(MidiException.class, () -> new SysExAssembler(64, 4, (sysEx, timeStamp) -> { }));
+        assertThrows(MidiException.class, () -> SysExView.wrap(new byte[]{1, 2, 3}, 0, 3));
+    }
+}